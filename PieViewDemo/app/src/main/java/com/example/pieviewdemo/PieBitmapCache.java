@@ -0,0 +1,143 @@
+package com.example.pieviewdemo;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+/**
+ * 画好的饼状图位图的缓存，按字节数限制大小，超过的时候去掉最久没用的
+ * key是数据的内容哈希、大小、样式、选中、旋转，列表滚回来的时候同样的图直接画一张位图
+ * 只在主线程用
+ */
+public final class PieBitmapCache {
+
+	private final LruCache<Key, Bitmap> mBitmaps;
+
+	/**
+	 * @param maxBytes 最多占多少字节，比如可用内存的1/8
+	 */
+	public PieBitmapCache(int maxBytes) {
+		mBitmaps = new LruCache<Key, Bitmap>(maxBytes) {
+			@Override
+			protected int sizeOf(Key key, Bitmap bitmap) {
+				return bitmap.getAllocationByteCount();
+			}
+		};
+	}
+
+	/**
+	 * 没有的时候返回null（算一次没命中）
+	 */
+	public Bitmap get(Key key) {
+		return mBitmaps.get(key);
+	}
+
+	public void put(Key key, Bitmap bitmap) {
+		mBitmaps.put(key, bitmap);
+	}
+
+	/**
+	 * 改预算，变小的时候马上去掉多出来的
+	 */
+	public void resize(int maxBytes) {
+		mBitmaps.resize(maxBytes);
+	}
+
+	/**
+	 * 全部清掉，内存紧张的时候（onTrimMemory）调用
+	 */
+	public void clear() {
+		mBitmaps.evictAll();
+	}
+
+	public int getHitCount() {
+		return mBitmaps.hitCount();
+	}
+
+	public int getMissCount() {
+		return mBitmaps.missCount();
+	}
+
+	public int getEvictionCount() {
+		return mBitmaps.evictionCount();
+	}
+
+	/**
+	 * 现在占的字节数
+	 */
+	public int getSizeBytes() {
+		return mBitmaps.size();
+	}
+
+	public int getMaxBytes() {
+		return mBitmaps.maxSize();
+	}
+
+	/**
+	 * 缓存的key，样式是不会变的对象，直接比较引用
+	 * 数据只存64位的内容哈希（{@link com.example.piecore.PieDataSet#contentHash()}，值、颜色、文字的每个字符都算进去）和块数，
+	 * 不存数据本身；哈希是FNV-1a，不是加密哈希：正常的数据撞上的概率在2^-64量级，但是可以故意构造出撞上的数据，
+	 * 撞上的时候会画成另一份数据的图，数据来自不可信的输入、一定不能画错的时候不要用缓存
+	 * 可以改的，查找的时候每个PieDrawable复用同一个（{@link #set}），放进缓存的时候用{@link #copy()}，缓存里面的key不会再改
+	 */
+	public static final class Key {
+
+		private long     mDataHash;
+		private int      mDataCount;
+		private int      mWidth;
+		private int      mHeight;
+		private PieStyle mStyle;
+		private int      mSelectIndex;
+		private float    mRotate;
+
+		public Key() {
+		}
+
+		public Key(long dataHash, int dataCount, int width, int height, PieStyle style, int selectIndex, float rotate) {
+			set(dataHash, dataCount, width, height, style, selectIndex, rotate);
+		}
+
+		/**
+		 * 改成另一个key，查找的时候用，不要改已经放进缓存的key
+		 */
+		public Key set(long dataHash, int dataCount, int width, int height, PieStyle style, int selectIndex, float rotate) {
+			mDataHash = dataHash;
+			mDataCount = dataCount;
+			mWidth = width;
+			mHeight = height;
+			mStyle = style;
+			mSelectIndex = selectIndex;
+			mRotate = rotate;
+			return this;
+		}
+
+		public Key copy() {
+			return new Key(mDataHash, mDataCount, mWidth, mHeight, mStyle, mSelectIndex, mRotate);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return mDataHash == key.mDataHash && mDataCount == key.mDataCount && mWidth == key.mWidth
+				   && mHeight == key.mHeight && mStyle == key.mStyle && mSelectIndex == key.mSelectIndex
+				   && Float.compare(mRotate, key.mRotate) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = (int) (mDataHash ^ (mDataHash >>> 32));
+			result = 31 * result + mDataCount;
+			result = 31 * result + mWidth;
+			result = 31 * result + mHeight;
+			result = 31 * result + System.identityHashCode(mStyle);
+			result = 31 * result + mSelectIndex;
+			result = 31 * result + Float.floatToIntBits(mRotate);
+			return result;
+		}
+	}
+}
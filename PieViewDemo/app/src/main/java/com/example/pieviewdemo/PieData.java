@@ -22,7 +22,7 @@ package com.example.pieviewdemo;
 public class PieData {
     // 用户关心数据
     private String name;        // 名字
-    private float value;        // 数值
+    private double value;       // 数值
     private float percentage;   // 百分比
 
 
@@ -30,7 +30,12 @@ public class PieData {
     private int color = 0;      // 颜色
     private float angle = 0;    // 角度
 
-    public PieData(String name, float value) {
+    public PieData(String name, double value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    public PieData(String name, long value) {
         this.name = name;
         this.value = value;
     }
@@ -59,11 +64,11 @@ public class PieData {
         this.angle = angle;
     }
 
-    public float getValue() {
+    public double getValue() {
         return value;
     }
 
-    public void setValue(float value) {
+    public void setValue(double value) {
         this.value = value;
     }
 
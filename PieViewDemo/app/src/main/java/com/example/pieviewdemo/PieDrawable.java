@@ -0,0 +1,259 @@
+package com.example.pieviewdemo;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import com.example.piecore.FastMath;
+import com.example.piecore.LabelGeometry;
+import com.example.piecore.LabelLayout;
+import com.example.piecore.LabelTextBuffer;
+import com.example.piecore.LabelTextCache;
+import com.example.piecore.PieDataSet;
+
+/**
+ * 不需要View的饼状图，给列表里面很多个小饼状图用（比如RecyclerView的每一项）
+ * 样式、画笔、文字宽度缓存都在共用的{@link PieStyle}里面，这里只有每一个图自己的数据、文字位置和选中；
+ * 列表项复用的时候bind新的数据，数组都是复用的，不创建新的对象
+ * 不能点击也不能旋转，要交互的时候还是用PieGraph
+ * 设置了{@link PieBitmapCache}以后，画过的同样的图（数据、大小、样式、选中、旋转都一样）直接画缓存的位图
+ */
+public class PieDrawable extends Drawable {
+
+	private final PieStyle        mStyle;
+	private       PieDataSet      mDataSet;
+	private final LabelTextBuffer mLabelText      = new LabelTextBuffer();
+	private final LabelTextCache  mLabelTextCache = new LabelTextCache();
+	private final LabelLayout     mLabelLayout    = new LabelLayout();
+	private final RectF           mPieRectF       = new RectF();
+	private final float[]         mLinePoints     = new float[8];
+	/**
+	 * 每次bind加1，文字位置的缓存用
+	 */
+	private       int             mDataVersion;
+	private       int             mSelectIndex    = -1;
+	private       float           mRotate;
+	private       int             mAlpha          = 255;
+	private       ColorFilter     mColorFilter;
+	private       PieBitmapCache  mBitmapCache;
+	/**
+	 * 查缓存用的key，每次画都复用
+	 */
+	private final PieBitmapCache.Key mLookupKey   = new PieBitmapCache.Key();
+
+	public PieDrawable(PieStyle style) {
+		mStyle = style;
+	}
+
+	/**
+	 * 绑定数据，列表项显示的时候调用
+	 * 角度在这里算（已经算好的不会重新算），文字只有变了的块才重新格式化
+	 */
+	public void bind(PieDataSet dataSet) {
+		mDataSet = dataSet;
+		mSelectIndex = -1;
+		if (dataSet != null) {
+			dataSet.computeAngles();
+			if (mStyle.isDrawLabels()) {
+				mLabelTextCache.update(dataSet, mStyle.getLabelFormatter(), mStyle.getTextMeasurer(), mLabelText);
+			}
+		}
+		mDataVersion++;
+		invalidateSelf();
+	}
+
+	/**
+	 * 解除绑定，列表项回收的时候调用；只是不再引用数据，数组留着下次bind复用
+	 */
+	public void unbind() {
+		mDataSet = null;
+		mSelectIndex = -1;
+		invalidateSelf();
+	}
+
+	public PieDataSet getDataSet() {
+		return mDataSet;
+	}
+
+	public PieStyle getStyle() {
+		return mStyle;
+	}
+
+	/**
+	 * 选中的那块往外拉出来，-1表示没有选中
+	 */
+	public void setSelectIndex(int selectIndex) {
+		if (selectIndex == mSelectIndex) {
+			return;
+		}
+		mSelectIndex = selectIndex;
+		invalidateSelf();
+	}
+
+	public void setRotate(float rotate) {
+		if (rotate == mRotate) {
+			return;
+		}
+		mRotate = rotate;
+		invalidateSelf();
+	}
+
+	/**
+	 * 设置画好的位图的缓存，可以很多个PieDrawable共用一个；null的时候每次都直接画（默认）
+	 */
+	public void setBitmapCache(PieBitmapCache bitmapCache) {
+		mBitmapCache = bitmapCache;
+		invalidateSelf();
+	}
+
+	@Override
+	public void draw(Canvas canvas) {
+		PieDataSet dataSet = mDataSet;
+		if (dataSet == null || dataSet.getCount() <= 0) {
+			return;
+		}
+		Rect bounds = getBounds();
+		if (mBitmapCache != null) {
+			drawCached(canvas, dataSet, bounds);
+			return;
+		}
+		drawContent(canvas, dataSet, bounds.exactCenterX(), bounds.exactCenterY(), mAlpha, mColorFilter);
+	}
+
+	/**
+	 * 先找缓存，没有的时候画到一张新的位图上放进缓存；透明度和滤镜在画位图的时候才用，所以不影响缓存
+	 */
+	private void drawCached(Canvas canvas, PieDataSet dataSet, Rect bounds) {
+		int width = bounds.width();
+		int height = bounds.height();
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+		// 命中的时候不创建对象，没命中才复制一份key放进缓存
+		PieBitmapCache.Key key = mLookupKey.set(dataSet.contentHash(), dataSet.getCount(), width, height, mStyle,
+												mSelectIndex, mRotate);
+		Bitmap bitmap = mBitmapCache.get(key);
+		if (bitmap == null) {
+			bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+			drawContent(new Canvas(bitmap), dataSet, width / 2f, height / 2f, 255, null);
+			mBitmapCache.put(key.copy(), bitmap);
+		}
+		Paint bitmapPaint = mStyle.getBitmapPaint();
+		bitmapPaint.setAlpha(mAlpha);
+		bitmapPaint.setColorFilter(mColorFilter);
+		canvas.drawBitmap(bitmap, bounds.left, bounds.top, bitmapPaint);
+	}
+
+	/**
+	 * 直接画饼状图和文字
+	 */
+	private void drawContent(Canvas canvas, PieDataSet dataSet, float centerX, float centerY, int alpha,
+							 ColorFilter colorFilter) {
+		float radius = mStyle.getRadius();
+		mPieRectF.set(centerX - radius, centerY - radius, centerX + radius, centerY + radius);
+		int count = dataSet.getCount();
+		float[] startAngles = dataSet.getStartAngles();
+		float[] sweepAngles = dataSet.getSweepAngles();
+
+		// 画笔是共用的，每次画都把这次的颜色和滤镜设置上
+		Paint piePaint = mStyle.getPiePaint();
+		piePaint.setColorFilter(colorFilter);
+		for (int index = 0; index < count; index++) {
+			if (sweepAngles[index] == 0 || index == mSelectIndex) {
+				continue;
+			}
+			piePaint.setColor(withAlpha(dataSet.getColor(index), alpha));
+			canvas.drawArc(mPieRectF, startAngles[index] + mRotate, sweepAngles[index], true, piePaint);
+		}
+		if (mSelectIndex >= 0 && mSelectIndex < count && sweepAngles[mSelectIndex] != 0) {
+			float middle = LabelGeometry.middleAngle(startAngles[mSelectIndex], sweepAngles[mSelectIndex], mRotate);
+			float offset = mStyle.getSelectOffset();
+			mPieRectF.offset(FastMath.cosDegrees(middle) * offset, FastMath.sinDegrees(middle) * offset);
+			piePaint.setColor(withAlpha(dataSet.getColor(mSelectIndex), alpha));
+			canvas.drawArc(mPieRectF, startAngles[mSelectIndex] + mRotate, sweepAngles[mSelectIndex], true, piePaint);
+		}
+		if (mStyle.isDrawLabels()) {
+			drawLabels(canvas, centerX, centerY, startAngles, sweepAngles, count, alpha, colorFilter);
+		}
+	}
+
+	/**
+	 * 画文字标记，和PieGraph一样用LabelLayout算位置，重叠的不画
+	 */
+	private void drawLabels(Canvas canvas, float centerX, float centerY, float[] startAngles, float[] sweepAngles, int count,
+							int alpha, ColorFilter colorFilter) {
+		PieStyle style = mStyle;
+		mLabelLayout.update(mDataVersion, centerX, centerY, startAngles, sweepAngles, mLabelText, count, mRotate, mSelectIndex,
+							style.getRadius(), style.getSelectOffset(), style.getMarkerLine1(), style.getMarkerLine2(),
+							style.getTextHeight());
+		Paint textPaint = style.getTextPaint();
+		Paint linePaint = style.getLinePaint();
+		int textColor = withAlpha(style.getTextColor(), alpha);
+		textPaint.setColor(textColor);
+		textPaint.setColorFilter(colorFilter);
+		linePaint.setColor(textColor);
+		linePaint.setColorFilter(colorFilter);
+		char[] chars = mLabelText.getChars();
+		float baseline = style.getTextHeight() - style.getTextBottom();
+		for (int index = 0; index < count; index++) {
+			if (!mLabelLayout.isVisible(index)) {
+				continue;
+			}
+			mLinePoints[0] = mLabelLayout.getStartX(index);
+			mLinePoints[1] = mLabelLayout.getStartY(index);
+			mLinePoints[2] = mLabelLayout.getElbowX(index);
+			mLinePoints[3] = mLabelLayout.getLineY(index);
+			mLinePoints[4] = mLinePoints[2];
+			mLinePoints[5] = mLinePoints[3];
+			mLinePoints[6] = mLabelLayout.getEndX(index);
+			mLinePoints[7] = mLinePoints[3];
+			canvas.drawLines(mLinePoints, linePaint);
+			canvas.drawText(chars, mLabelText.getOffset(index), mLabelText.getLength(index), mLabelLayout.getTextLeft(index),
+							mLabelLayout.getTextTop(index) + baseline, textPaint);
+		}
+	}
+
+	/**
+	 * 颜色乘上透明度
+	 */
+	private static int withAlpha(int color, int alpha) {
+		if (alpha == 255) {
+			return color;
+		}
+		return ((color >>> 24) * alpha / 255 << 24) | (color & 0x00ffffff);
+	}
+
+	@Override
+	public void setAlpha(int alpha) {
+		if (alpha == mAlpha) {
+			return;
+		}
+		mAlpha = alpha;
+		invalidateSelf();
+	}
+
+	@Override
+	public int getAlpha() {
+		return mAlpha;
+	}
+
+	@Override
+	public void setColorFilter(ColorFilter colorFilter) {
+		mColorFilter = colorFilter;
+		invalidateSelf();
+	}
+
+	@Override
+	public int getOpacity() {
+		return PixelFormat.TRANSLUCENT;
+	}
+
+	@Override
+	public int getIntrinsicHeight() {
+		return mStyle.getPreferredHeight();
+	}
+}
@@ -1,23 +1,55 @@
 package com.example.pieviewdemo;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.Rect;
+import android.graphics.Picture;
 import android.graphics.RectF;
+import android.graphics.Region;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.text.TextPaint;
 import android.util.AttributeSet;
+import android.util.DisplayMetrics;
 import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 
-import java.text.DecimalFormat;
+import com.example.piecore.AngleIndex;
+import com.example.piecore.FastMath;
+import com.example.piecore.LabelFormat;
+import com.example.piecore.LabelFormatter;
+import com.example.piecore.LabelGeometry;
+import com.example.piecore.LabelLayout;
+import com.example.piecore.LabelTextBuffer;
+import com.example.piecore.LabelTextCache;
+import com.example.piecore.LodBuckets;
+import com.example.piecore.PieDataSet;
+import com.example.piecore.PieMetrics;
+import com.example.piecore.PieSnapshot;
+import com.example.piecore.PieTransition;
+import com.example.piecore.RotationFling;
+import com.example.piecore.SunburstLayout;
+import com.example.piecore.SunburstNode;
+import com.example.piecore.TextMeasurer;
+import com.example.piecore.TextWidthCache;
+import com.example.piecore.WedgeGeometry;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 饼状图
@@ -53,6 +85,43 @@ public class PieGraph extends View {
 	 * 默认文字连接线着之后水平方向多出来的距离 6dp
 	 */
 	private static final int DEFAULT_MARKER_LINE2_DP  = 6;
+	/**
+	 * 惯性旋转的衰减系数（1/秒）
+	 */
+	private static final float FLING_FRICTION         = 3f;
+	/**
+	 * 旋转在半径上移动不到这么多像素的时候先不重绘
+	 */
+	private static final float SUB_PIXEL_THRESHOLD    = 0.5f;
+	/**
+	 * 多层饼状图没有设置每一圈宽度的时候，半径分成几圈
+	 */
+	private static final int DEFAULT_SUNBURST_RINGS   = 3;
+	/**
+	 * onSaveInstanceState里面最多放这么大的快照，再大的话Binder放不下，只保存旋转和选中（大的用writeSnapshot写文件）
+	 */
+	private static final int MAX_SAVED_SNAPSHOT_BYTES = 256 * 1024;
+	/**
+	 * 所有PieGraph共用的文字宽度缓存，每个文字大小最多存的个数
+	 */
+	private static final TextWidthCache TEXT_WIDTH_CACHE = new TextWidthCache(512);
+
+	/**
+	 * 下一帧要更新的东西，大小和半径变了
+	 */
+	private static final int DIRTY_GEOMETRY  = 1;
+	/**
+	 * 数据（角度、文字）变了
+	 */
+	private static final int DIRTY_DATA      = 1 << 1;
+	/**
+	 * 旋转了，只要旋转画布，路径和图层都不用重建
+	 */
+	private static final int DIRTY_ROTATION  = 1 << 2;
+	/**
+	 * 选中变了，只有之前选中和现在选中的两块要重新算
+	 */
+	private static final int DIRTY_SELECTION = 1 << 3;
 
 	/**
 	 * 饼状图的半径
@@ -90,6 +159,10 @@ public class PieGraph extends View {
 	 * mMarkerLine1的基础上延伸出来的水平线的长度
 	 */
 	private float               mMarkerLine2;
+	/**
+	 * 测量高度的时候预留的padding，初始化的时候换算一次
+	 */
+	private int                 mPadding;
 	/**
 	 * 绘制字体的画笔
 	 */
@@ -99,9 +172,29 @@ public class PieGraph extends View {
 	 */
 	private Paint               mLinePaint;
 	/**
-	 * 饼状图信息列表
+	 * 饼状图的数据，按列存放，绘制和点击都直接用这里的数组
+	 */
+	private PieDataSet          mDataSet;
+	/**
+	 * 饼状图信息列表（用List设置数据的时候才有，和mDataSet一一对应，回调的时候给外部用）
 	 */
 	private List<PieDataHolder> pieDataHolders;
+	/**
+	 * 每一块的开始角度（mDataSet里面缓存的数组）
+	 */
+	private float[]             mStartAngles;
+	/**
+	 * 每一块扫过的角度（mDataSet里面缓存的数组）
+	 */
+	private float[]             mSweepAngles;
+	/**
+	 * 选中的位置，没有选中是-1
+	 */
+	private int                 mSelectPosition;
+	/**
+	 * 按角度找是哪一块的索引（结束角度的前缀和，二分查找）
+	 */
+	private AngleIndex          mAngleIndex;
 	/**
 	 * 饼状图正常时候那个矩形区域
 	 */
@@ -115,25 +208,125 @@ public class PieGraph extends View {
 	 */
 	private Paint               mPiePaint;
 	/**
-	 * 上一个画的文字的区域（用来判断文字是否有重叠的情况，为了提升体验重叠的时候我们是不画的）
+	 * 按像素合并以后的绘制分组
+	 */
+	private LodBuckets          mLodBuckets;
+	/**
+	 * 圆弧长度小于这个值（像素）的连续几块合并成一组画，小于等于0的时候不合并
+	 */
+	private float               mLodArcThreshold;
+	/**
+	 * 每一块的路径和选中时候拉出来的方向，只有角度或者半径变了的那几块才重新算
+	 */
+	private WedgePathCache      mWedgePaths;
+	/**
+	 * 是否用缓存的图层画饼状图（没有选中的部分录一次，旋转的时候只是旋转画布）
+	 */
+	private boolean             mPieLayerEnabled;
+	/**
+	 * 缓存的图层，旋转0度、所有块都在原来位置的饼状图，画的时候把选中那块的位置挖掉
+	 */
+	private Picture             mPieLayer;
+	/**
+	 * 录图层时候用的矩形（左上角是0,0）
+	 */
+	private RectF               mPieLayerRectF;
+	/**
+	 * 图层的key，数据、半径、合并阈值有一个变了就要重新录，版本-1表示还没有录过（选中变了不用重新录）
+	 */
+	private int                 mPieLayerVersion = -1;
+	private float               mPieLayerRadius;
+	private float               mPieLayerLod;
+	/**
+	 * 每一块的文字，设置数据的时候就拼好量好，绘制的时候直接用
+	 */
+	private LabelTextBuffer     mLabelText;
+	/**
+	 * 自定义的文字格式，null的时候按mIsDrawRatio用默认的
+	 */
+	private LabelFormatter      mLabelFormatter;
+	/**
+	 * 每一块上一次的文字，数据变了只重新格式化变了的那几块
+	 */
+	private LabelTextCache      mLabelTextCache;
+	/**
+	 * 量文字宽度，先查共用的宽度缓存
+	 */
+	private TextMeasurer        mTextMeasurer;
+	/**
+	 * 所有文字标记的位置（线和文字区域），以及重叠的时候哪些不画
+	 */
+	private LabelLayout         mLabelLayout;
+	/**
+	 * 绘制的统计，默认是null不记录，打开以后才创建
+	 */
+	private PieMetrics          mMetrics;
+	private PieMetrics.Listener mMetricsListener;
+	/**
+	 * 数据的版本，每次设置数据加1，文字位置的缓存用
+	 */
+	private int                 mDataVersion;
+	/**
+	 * 上一帧以后哪些东西变了（DIRTY_*），画完一帧清空
+	 */
+	private int                 mDirty = DIRTY_GEOMETRY | DIRTY_DATA;
+	/**
+	 * 异步设置数据的代数，每次设置数据加1，后台算完以后代数不一样了说明已经有更新的数据，结果直接丢掉
+	 */
+	private final AtomicInteger mAsyncGeneration = new AtomicInteger();
+	/**
+	 * 换数据时候的过渡动画的时长（毫秒），小于等于0的时候没有动画直接换
 	 */
-	private Rect                mPreTextRect;
+	private long                mTransitionDuration;
 	/**
-	 * 当前要画的文字的区域（用来判断文字是否有重叠的情况，为了提升体验重叠的时候我们是不画的）
+	 * 过渡动画每一帧插值出来的角度和选中偏移
 	 */
-	private Rect                mCurrentTextRect;
+	private PieTransition       mTransition;
 	/**
-	 * 第一个文字的区域，在判断最后一个文字的区域是否有重叠的时候，即判断了前一个也判断了第一个
+	 * 过渡动画，只有这一个，换数据的时候重新start
 	 */
-	private Rect                mFirstTextRect;
+	private ValueAnimator       mTransitionAnimator;
+	/**
+	 * 过渡动画是不是正在进行
+	 */
+	private boolean             mTransitionRunning;
+	/**
+	 * 画文字连接线用的点（两段线，8个值），每一帧复用
+	 */
+	private float[]             mLinePoints;
 	/**
 	 * 监听器，监听哪一款是否有选中
 	 */
 	private OnPieGraphListener  mListener;
+	/**
+	 * 多层饼状图的数据和每一圈的角度，null的时候是普通的饼状图
+	 */
+	private SunburstLayout      mSunburst;
+	/**
+	 * 多层饼状图每一圈的宽度，小于等于0的时候半径平分成DEFAULT_SUNBURST_RINGS圈
+	 */
+	private float               mSunburstRingWidth;
+	/**
+	 * 画一块圆环用的，每一块复用
+	 */
+	private Path                mSunburstPath;
+	private RectF               mSunburstOuterRectF;
+	private RectF               mSunburstInnerRectF;
+	/**
+	 * 多层饼状图选中的圈和在这一圈里面的下标，没有选中是-1
+	 */
+	private int                 mSunburstSelectDepth = -1;
+	private int                 mSunburstSelectIndex = -1;
+	private OnSunburstListener  mSunburstListener;
 	/**
 	 * 滑动产生的距离
 	 */
 	private int                 mTouchSlop;
+	/**
+	 * 圆心，大小变化的时候算一次，点击的时候直接用
+	 */
+	private float               mCenterX;
+	private float               mCenterY;
 	/**
 	 * 旋转的角度,随手指旋转
 	 */
@@ -143,9 +336,44 @@ public class PieGraph extends View {
 	 */
 	private boolean             mCanRotate;
 	/**
-	 * 确定比例保存几位小数
+	 * 上一次画出来的时候的旋转角度，和mRotate差得不到一个像素的时候不重绘
+	 */
+	private float               mDrawnRotate;
+	/**
+	 * 手指滑动的速度
 	 */
-	private DecimalFormat       mDecimalFormat;
+	private VelocityTracker     mVelocityTracker;
+	/**
+	 * 惯性旋转能启动的最小速度和最大速度（像素/秒）
+	 */
+	private int                 mMinFlingVelocity;
+	private int                 mMaxFlingVelocity;
+	/**
+	 * 惯性旋转
+	 */
+	private RotationFling       mFling;
+	/**
+	 * 惯性旋转上一帧的时间，0表示还没有开始
+	 */
+	private long                mFlingFrameTime;
+	/**
+	 * 惯性旋转每一帧的回调
+	 */
+	private final Choreographer.FrameCallback mFlingCallback = new Choreographer.FrameCallback() {
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			if (mFlingFrameTime != 0) {
+				rotateBy(mFling.step((frameTimeNanos - mFlingFrameTime) / 1000000000f));
+			}
+			mFlingFrameTime = frameTimeNanos;
+			if (mFling.isFinished()) {
+				// 停下来的时候把攒着的一点角度画出来
+				invalidate();
+			} else {
+				Choreographer.getInstance().postFrameCallback(this);
+			}
+		}
+	};
 
 	/**
 	 * 选中监听
@@ -157,6 +385,16 @@ public class PieGraph extends View {
 		void onNoPieSelect();
 	}
 
+	/**
+	 * 多层饼状图的选中监听
+	 */
+	public interface OnSunburstListener {
+
+		void onNodeSelect(SunburstNode node);
+
+		void onNoNodeSelect();
+	}
+
 	public PieGraph(Context context) {
 		this(context, null);
 	}
@@ -176,17 +414,46 @@ public class PieGraph extends View {
 		mTextPaint = new TextPaint();
 		mTextPaint.setFlags(Paint.ANTI_ALIAS_FLAG);
 		mTextPaint.setTextAlign(Paint.Align.LEFT);
+		mDataSet = new PieDataSet(0);
 		pieDataHolders = new ArrayList<>();
+		mSelectPosition = -1;
 		mPieNormalRectF = new RectF();
 		mPieSelectRectF = new RectF();
+		mSunburstPath = new Path();
+		mSunburstOuterRectF = new RectF();
+		mSunburstInnerRectF = new RectF();
+		mPieLayerRectF = new RectF();
 
 		mPiePaint = new Paint();
 		mPiePaint.setFlags(Paint.ANTI_ALIAS_FLAG);
 		mPiePaint.setStyle(Paint.Style.FILL);
+		mLodBuckets = new LodBuckets();
+		mWedgePaths = new WedgePathCache();
 
-		mPreTextRect = new Rect();
-		mCurrentTextRect = new Rect();
-		mFirstTextRect = new Rect();
+		mLabelText = new LabelTextBuffer();
+		mLabelTextCache = new LabelTextCache();
+		mTextMeasurer = newTextMeasurer(mTextPaint);
+		mLabelLayout = new LabelLayout();
+		mLinePoints = new float[8];
+		mStartAngles = new float[0];
+		mSweepAngles = new float[0];
+		mAngleIndex = new AngleIndex();
+		mTransition = new PieTransition();
+		mTransitionAnimator = ValueAnimator.ofFloat(0, 1);
+		mTransitionAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+			@Override
+			public void onAnimationUpdate(ValueAnimator animation) {
+				mTransition.apply(animation.getAnimatedFraction());
+				invalidate();
+			}
+		});
+		mTransitionAnimator.addListener(new AnimatorListenerAdapter() {
+			@Override
+			public void onAnimationEnd(Animator animation) {
+				mTransitionRunning = false;
+				invalidate();
+			}
+		});
 
 		mLinePaint = new Paint();
 		mLinePaint.setFlags(Paint.ANTI_ALIAS_FLAG);
@@ -194,10 +461,11 @@ public class PieGraph extends View {
 
 		ViewConfiguration configuration = ViewConfiguration.get(getContext());
 		mTouchSlop = configuration.getScaledTouchSlop();
+		mMinFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+		mMaxFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+		mFling = new RotationFling(FLING_FRICTION);
 
 		mRotate = 0;
-		// 默认保留两位小数
-		mDecimalFormat = new DecimalFormat("0.00");
 	}
 
 	/**
@@ -205,26 +473,25 @@ public class PieGraph extends View {
 	 */
 	private void initAttrs(AttributeSet attrs, int defStyleAttr) {
 		final TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.PieGraph, defStyleAttr, 0);
+		// 默认值用的换算，取一次就行
+		DisplayMetrics metrics = getResources().getDisplayMetrics();
 
 		mPieRadius = a.getDimensionPixelSize(R.styleable.PieGraph_pie_circle_radius,
-													   (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_RADIUS_DP,
-																					   getResources().getDisplayMetrics()));
+													   (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_RADIUS_DP, metrics));
 		mSelectOffset= a.getDimensionPixelSize(R.styleable.PieGraph_pie_select_offset,
-											   (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_SELECT_OFFSET_DP,
-																			   getResources().getDisplayMetrics()));
+											   (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_SELECT_OFFSET_DP, metrics));
 
 		mTextSize = a.getDimensionPixelSize(R.styleable.PieGraph_pie_text_size,
-											(int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, DEFAULT_TEXT_SIZE_SP,
-																			getResources().getDisplayMetrics()));
+											(int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, DEFAULT_TEXT_SIZE_SP, metrics));
 		mTextColor = a.getColor(R.styleable.PieGraph_pie_text_color, 0xff000000);
 		mIsDrawRatio = a.getBoolean(R.styleable.PieGraph_pie_show_radio, false);
 		mMarkerLine1 = a.getDimensionPixelSize(R.styleable.PieGraph_pie_marker_line1,
-											   (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_MARKER_LINE1_DP,
-																			   getResources().getDisplayMetrics()));
+											   (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_MARKER_LINE1_DP, metrics));
 		mMarkerLine2 = a.getDimensionPixelSize(R.styleable.PieGraph_pie_marker_line2,
-											   (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_MARKER_LINE2_DP,
-																			   getResources().getDisplayMetrics()));
+											   (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_MARKER_LINE2_DP, metrics));
+		mPadding = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_PADDING, metrics);
 		mCanRotate = a.getBoolean(R.styleable.PieGraph_pie_can_rotate, true);
+		mTransitionDuration = a.getInt(R.styleable.PieGraph_pie_transition_duration, 0);
 		a.recycle();
 	}
 
@@ -243,23 +510,126 @@ public class PieGraph extends View {
 	 */
 	@Override
 	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-		int padding = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_PADDING,
-													  getResources().getDisplayMetrics());
 		// 半径 + 选中的时候多出来的部分 + 半径延长线 + 文字的高度的一半（文字的高度一半是在外面的）+ 预留的padding
-		int height = (int) ((mPieRadius + mSelectOffset + mMarkerLine1 + mTextHeight / 2 + padding ) * 2);
+		int height = (int) ((mPieRadius + mSelectOffset + mMarkerLine1 + mTextHeight / 2 + mPadding ) * 2);
 		setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec), height);
 
 	}
 
+	@Override
+	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		super.onSizeChanged(w, h, oldw, oldh);
+		mCenterX = w / 2;
+		mCenterY = h / 2;
+		mDirty |= DIRTY_GEOMETRY;
+	}
+
 	/**
 	 * 具体的绘制
 	 */
 	@Override
 	protected void onDraw(Canvas canvas) {
 		super.onDraw(canvas);
-		initPieRectF();
+		// 数据增量改过的话，这里一次性重新算角度和文字，一帧里面改多次也只算一次
+		if (mDataSet.isAnglesDirty()) {
+			refreshData();
+		}
+		mDrawnRotate = mRotate;
+		if (mSunburst != null) {
+			long start = mMetrics != null ? System.nanoTime() : 0;
+			drawSunburst(canvas);
+			if (mMetrics != null) {
+				mMetrics.record(PieMetrics.STAGE_ARC_DRAW, System.nanoTime() - start);
+				reportMetrics();
+			}
+			return;
+		}
+		if (mTransitionRunning) {
+			// 过渡动画的时候角度每一帧都在变，路径缓存先不更新（mDirty留到动画完了以后），文字也先不画
+			initPieRectF();
+			long start = mMetrics != null ? System.nanoTime() : 0;
+			drawPieTransition(canvas);
+			if (mMetrics != null) {
+				mMetrics.record(PieMetrics.STAGE_ARC_DRAW, System.nanoTime() - start);
+				reportMetrics();
+			}
+			return;
+		}
+		int dirty = mDirty;
+		mDirty = 0;
+		if ((dirty & DIRTY_GEOMETRY) != 0) {
+			initPieRectF();
+		}
+		if ((dirty & ~(DIRTY_ROTATION | DIRTY_SELECTION)) != 0) {
+			// 只有旋转和选中变了的时候，路径都不用动
+			mWedgePaths.update(mStartAngles, mSweepAngles, mDataSet.getCount(), mPieRadius);
+		}
+		long start = mMetrics != null ? System.nanoTime() : 0;
 		drawPie(canvas);
+		if (mMetrics != null) {
+			mMetrics.record(PieMetrics.STAGE_ARC_DRAW, System.nanoTime() - start);
+		}
 		drawText(canvas);
+		if (mMetrics != null) {
+			reportMetrics();
+		}
+	}
+
+	@Override
+	public void invalidate() {
+		if (mMetrics != null) {
+			mMetrics.onInvalidate(System.nanoTime());
+		}
+		super.invalidate();
+	}
+
+	/**
+	 * 保存数据快照、旋转、选中，配置变化或者进程重建以后不用重新设置数据、重新算
+	 */
+	@Override
+	protected Parcelable onSaveInstanceState() {
+		SavedState state = new SavedState(super.onSaveInstanceState());
+		state.mRotate = mRotate;
+		if (mSunburst == null) {
+			state.mSelectIndex = mSelectPosition;
+			if (mDataSet.getCount() > 0 && PieSnapshot.sizeOf(mDataSet) <= MAX_SAVED_SNAPSHOT_BYTES) {
+				ensureDataFresh();
+				state.mSnapshot = PieSnapshot.write(mDataSet, mRotate, mSelectPosition);
+			}
+		}
+		return state;
+	}
+
+	@Override
+	protected void onRestoreInstanceState(Parcelable state) {
+		if (!(state instanceof SavedState)) {
+			super.onRestoreInstanceState(state);
+			return;
+		}
+		SavedState savedState = (SavedState) state;
+		super.onRestoreInstanceState(savedState.getSuperState());
+		if (savedState.mSnapshot != null) {
+			restoreSnapshot(PieSnapshot.read(savedState.mSnapshot));
+			return;
+		}
+		// 快照太大没有保存的时候，数据是外部重新设置的，只恢复旋转和选中
+		mRotate = savedState.mRotate;
+		mAngleIndex.setRotate(mRotate);
+		mDirty |= DIRTY_ROTATION;
+		if (mSunburst == null && savedState.mSelectIndex < mDataSet.getCount()) {
+			setSelectPosition(savedState.mSelectIndex);
+		}
+		invalidate();
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		finishTransition();
+		stopFling();
+		// 路径缓存跟着控件释放，下次画的时候再建
+		mWedgePaths.release();
+		mDirty |= DIRTY_DATA;
 	}
 
 	/**
@@ -273,287 +643,925 @@ public class PieGraph extends View {
 	}
 
 	/**
-	 * 画饼状图
+	 * 画饼状图，选中的那块最后单独拉出来画
 	 */
 	private void drawPie(Canvas canvas) {
-		if (pieDataHolders == null || pieDataHolders.size() <= 0) {
+		int count = mDataSet.getCount();
+		if (count <= 0) {
+			return;
+		}
+		if (mPieLayerEnabled && canDrawPieLayer(canvas)) {
+			drawPieLayer(canvas);
+		} else {
+			drawPieBody(canvas, mPieNormalRectF, mRotate, mSelectPosition);
+		}
+		if (mSelectPosition >= 0 && mSweepAngles[mSelectPosition] != 0) {
+			// 选中的时候往外面拉出来一点
+			drawCachedSelectPie(canvas, mSelectPosition);
+		}
+	}
+
+	/**
+	 * 画没有选中的那些块
+	 *
+	 * @param skipIndex 不画的那块（选中的后面单独画），-1的时候全部画
+	 */
+	private void drawPieBody(Canvas canvas, RectF rectF, float rotate, int skipIndex) {
+		if (mLodArcThreshold > 0) {
+			drawPieLod(canvas, rectF, rotate, skipIndex);
 			return;
 		}
-		for (PieDataHolder pieDataHolder : pieDataHolders) {
-			mPiePaint.setColor(pieDataHolder.mColor);
-			if(pieDataHolder.mSweepAngel == 0) {
+		// 路径都是圆心在原点、旋转0度的，画布挪过去转一下就行
+		int saveCount = canvas.save();
+		canvas.translate(rectF.centerX(), rectF.centerY());
+		canvas.rotate(rotate);
+		int skipped = 0;
+		for (int index = 0; index < mDataSet.getCount(); index++) {
+			if (mSweepAngles[index] == 0) {
 				// 0度的不画
+				skipped++;
 				continue;
 			}
-			if(pieDataHolder.mIsSelect) {
-				// 选中的时候往外面拉出来一点
-				drawSelectPie(canvas, pieDataHolder);
-			} else {
-				// 没有选中的时候正常画圆弧
-				canvas.drawArc(mPieNormalRectF, pieDataHolder.mStartAngel + mRotate, pieDataHolder.mSweepAngel, true, mPiePaint);
+			if (index == skipIndex) {
+				// 选中的后面单独画
+				continue;
 			}
+			// 没有选中的时候正常画
+			mPiePaint.setColor(mDataSet.getColor(index));
+			canvas.drawPath(mWedgePaths.getPath(index), mPiePaint);
+		}
+		canvas.restoreToCount(saveCount);
+		if (mMetrics != null) {
+			mMetrics.setZeroSweepSkips(skipped);
 		}
 	}
 
 	/**
-	 * 画选中那部分的饼状图，这里我们是要往外拉出来一部分的
+	 * 按像素合并以后再画，圆弧很小的连续几块合并成一组只画一次
 	 */
-	private void drawSelectPie(Canvas canvas,PieDataHolder pieData) {
-		mPiePaint.setColor(pieData.mColor);
-		mPieSelectRectF.set(mPieNormalRectF);
-		// 找到圆弧一半的位置，要往这个方向拉出去
-		float middle = (pieData.mStartAngel + pieData.mSweepAngel / 2 + mRotate) % 360;
-		if (middle < 0) {
-			middle += 360;
-		}
-		if (middle <= 90) {
-			int top = (int) (Math.sin(Math.toRadians(middle)) * mSelectOffset);
-			int left = (int) (Math.cos(Math.toRadians(middle)) * mSelectOffset);
-			mPieSelectRectF.left += left;
-			mPieSelectRectF.right += left;
-			mPieSelectRectF.top += top;
-			mPieSelectRectF.bottom += top;
-		}
-		if (middle > 90 && middle <= 180) {
-			middle = 180 - middle;
-			int top = (int) (Math.sin(Math.toRadians(middle)) * mSelectOffset);
-			int left = (int) (Math.cos(Math.toRadians(middle)) * mSelectOffset);
-			mPieSelectRectF.left -= left;
-			mPieSelectRectF.right -= left;
-			mPieSelectRectF.top += top;
-			mPieSelectRectF.bottom += top;
-		}
-		if (middle > 180 && middle <= 270) {
-			middle = 270 - middle;
-			int left = (int) (Math.sin(Math.toRadians(middle)) * mSelectOffset);
-			int top = (int) (Math.cos(Math.toRadians(middle)) * mSelectOffset);
-			mPieSelectRectF.left -= left;
-			mPieSelectRectF.right -= left;
-			mPieSelectRectF.top -= top;
-			mPieSelectRectF.bottom -= top;
-		}
-		if (middle > 270 && middle <= 360) {
-			middle = 360 - middle;
-			int top = (int) (Math.sin(Math.toRadians(middle)) * mSelectOffset);
-			int left = (int) (Math.cos(Math.toRadians(middle)) * mSelectOffset);
-			mPieSelectRectF.left += left;
-			mPieSelectRectF.right += left;
-			mPieSelectRectF.top -= top;
-			mPieSelectRectF.bottom -= top;
-		}
-		canvas.drawArc(mPieSelectRectF, pieData.mStartAngel + mRotate, pieData.mSweepAngel, true, mPiePaint);
-	}
-
-	/**
-	 * 画文字
-	 */
-	private void drawText(Canvas canvas) {
-		mTextPaint.setColor(mTextColor);
-		mLinePaint.setColor(mTextColor);
-		mCurrentTextRect.setEmpty();
-		mPreTextRect.setEmpty();
-		mFirstTextRect.setEmpty();
-		for(int index = 0; index < pieDataHolders.size(); index++){
-			PieDataHolder pieDataHolder = pieDataHolders.get(index);
-			if (pieDataHolder.mSweepAngel == 0) {
-				// 没有比例的不画
+	private void drawPieLod(Canvas canvas, RectF rectF, float rotate, int skipIndex) {
+		// 数据和半径没变的时候分组直接用上一次的
+		mLodBuckets.update(mDataVersion, mDataSet, mPieRadius, mLodArcThreshold);
+		for (int bucket = 0; bucket < mLodBuckets.getCount(); bucket++) {
+			if (mLodBuckets.getFirst(bucket) == skipIndex && mLodBuckets.getLast(bucket) == skipIndex) {
+				// 选中的那块单独一组的时候，后面拉出来画
 				continue;
 			}
-			String textMarker = String.valueOf(pieDataHolder.mRatio*100);
-			if (textMarker.length()>=5){
-				textMarker = textMarker.substring(0,5);
-			}
-			//String textMarker = String.format(Locale.getDefault(), "%.02f%s", pieDataHolder.mRatio, "%");
-			if(!mIsDrawRatio) {
-				textMarker = String.format(Locale.getDefault(), "%s(%s)", pieDataHolder.mMarker, textMarker+"%");
-			}
-			if (textMarker == null) {
+			// 选中的那块在一个合并的组里面的时候组还是整个画，后面再把真实的那一块拉出来画
+			mPiePaint.setColor(mLodBuckets.getColor(bucket));
+			canvas.drawArc(rectF, mLodBuckets.getStartAngle(bucket) + rotate, mLodBuckets.getSweepAngle(bucket), true, mPiePaint);
+		}
+	}
+
+	/**
+	 * 硬件加速的画布6.0以下不支持drawPicture，这时候还是每一块直接画
+	 */
+	private static boolean canDrawPieLayer(Canvas canvas) {
+		return !canvas.isHardwareAccelerated() || Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+	}
+
+	/**
+	 * 用缓存的图层画没有选中的那些块，旋转只是旋转画布，每一帧的开销和块数没关系
+	 * 图层里面选中的那块也在原来的位置，画的时候把那个位置挖掉，所以点击选中的时候也不用重新录
+	 */
+	private void drawPieLayer(Canvas canvas) {
+		if (mPieLayer == null) {
+			mPieLayer = new Picture();
+		}
+		if (mPieLayerVersion != mDataVersion || mPieLayerRadius != mPieRadius || mPieLayerLod != mLodArcThreshold) {
+			// 按旋转0度、圆心在(半径,半径)录下来
+			int size = (int) Math.ceil(mPieRadius * 2);
+			mPieLayerRectF.set(0, 0, mPieRadius * 2, mPieRadius * 2);
+			drawPieBody(mPieLayer.beginRecording(size, size), mPieLayerRectF, 0, -1);
+			mPieLayer.endRecording();
+			mPieLayerVersion = mDataVersion;
+			mPieLayerRadius = mPieRadius;
+			mPieLayerLod = mLodArcThreshold;
+		}
+		int saveCount = canvas.save();
+		canvas.rotate(mRotate, getWidth() / 2, getHeight() / 2);
+		canvas.translate(mPieNormalRectF.left, mPieNormalRectF.top);
+		if (mSelectPosition >= 0 && mSweepAngles[mSelectPosition] != 0) {
+			// 路径是圆心在原点的，挪到圆心挖掉再挪回来
+			canvas.translate(mPieRadius, mPieRadius);
+			clipOutPath(canvas, mWedgePaths.getPath(mSelectPosition));
+			canvas.translate(-mPieRadius, -mPieRadius);
+		}
+		canvas.drawPicture(mPieLayer);
+		canvas.restoreToCount(saveCount);
+	}
+
+	/**
+	 * 把路径的区域从画布上挖掉，8.0以上有专门的方法，以前的用DIFFERENCE（9.0以后不能用了）
+	 */
+	@SuppressWarnings("deprecation")
+	private static void clipOutPath(Canvas canvas, Path path) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+			canvas.clipOutPath(path);
+		} else {
+			canvas.clipPath(path, Region.Op.DIFFERENCE);
+		}
+	}
+
+	/**
+	 * 过渡动画的时候画插值出来的角度，选中拉出来的距离也跟着插值
+	 */
+	private void drawPieTransition(Canvas canvas) {
+		float[] startAngles = mTransition.getStartAngles();
+		float[] sweepAngles = mTransition.getSweepAngles();
+		float[] selectFractions = mTransition.getSelectFractions();
+		int skipped = 0;
+		for (int index = 0; index < mTransition.getCount(); index++) {
+			if (sweepAngles[index] == 0) {
+				skipped++;
 				continue;
 			}
-			float textWidth = mTextPaint.measureText(textMarker);
-			// 找到圆弧一半的位置，要往这个方向拉出去
-			float middle = (pieDataHolder.mStartAngel + pieDataHolder.mSweepAngel / 2 + mRotate) % 360;
-			if (middle < 0) {
-				middle += 360;
-			}
-			Path linePath = new Path();
-			linePath.close();
-			// 找到圆边缘上的点(分选中和没选中两种情况)
-			final float startX;
-			if (pieDataHolder.mIsSelect) {
-				startX = (float) (getWidth() / 2 + (mPieRadius + mSelectOffset) * Math.cos(Math.toRadians(middle)));
-			} else {
-				startX = (float) (getWidth() / 2 + (mPieRadius) * Math.cos(Math.toRadians(middle)));
-			}
-			final float startY;
-			if (pieDataHolder.mIsSelect) {
-				startY = (float) (getHeight() / 2 + (mPieRadius + mSelectOffset) * Math.sin(Math.toRadians(middle)));
-			}  else {
-				startY = (float) (getHeight() / 2 + (mPieRadius) * Math.sin(Math.toRadians(middle)));
-			}
-			linePath.moveTo(startX, startY);
-			final float x ;
-			if (pieDataHolder.mIsSelect) {
-				x = (float) (getWidth() / 2 + (mMarkerLine1 + mPieRadius + mSelectOffset) * Math.cos(Math.toRadians(middle)));
-			}  else {
-				x = (float) (getWidth() / 2 + (mMarkerLine1 + mPieRadius) * Math.cos(Math.toRadians(middle)));
-			}
-			final float y;
-			if (pieDataHolder.mIsSelect) {
-				y = (float) (getHeight() / 2 + (mMarkerLine1 + mPieRadius + mSelectOffset) * Math.sin(Math.toRadians(middle)));
-			} else {
-				y = (float) (getHeight() / 2 + (mMarkerLine1 + mPieRadius) * Math.sin(Math.toRadians(middle)));
-			}
-			linePath.lineTo(x, y);
-			float landLineX;
-			// 左边 右边的判断
-			if (270f > middle && middle > 90f) {
-				landLineX = x - mMarkerLine2;
+			mPiePaint.setColor(mDataSet.getColor(index));
+			if (selectFractions[index] > 0) {
+				drawSelectPie(canvas, index, startAngles[index], sweepAngles[index], mSelectOffset * selectFractions[index]);
 			} else {
-				landLineX = x + mMarkerLine2;
+				canvas.drawArc(mPieNormalRectF, startAngles[index] + mRotate, sweepAngles[index], true, mPiePaint);
 			}
-			linePath.lineTo(landLineX, y); // 画文字线先确定了
-			// 继续去确定文字的位置
-			if (270f > middle && middle > 90f) {
-				// 圆的右边
-				// 文字的区域
-				mCurrentTextRect.top = (int) (y - mTextHeight / 2);
-				mCurrentTextRect.left = (int) (landLineX - textWidth);
-				mCurrentTextRect.bottom = (int) (mCurrentTextRect.top + mTextHeight);
-				mCurrentTextRect.right = (int) (mCurrentTextRect.left + textWidth);
+		}
+		if (mMetrics != null) {
+			mMetrics.setZeroSweepSkips(skipped);
+		}
+	}
 
-			} else {
-				// 圆的左边
-				// 文字的区域
-				mCurrentTextRect.top = (int) (y - mTextHeight / 2);
-				mCurrentTextRect.left = (int) (landLineX);
-				mCurrentTextRect.bottom = (int) (mCurrentTextRect.top + mTextHeight);
-				mCurrentTextRect.right = (int) (mCurrentTextRect.left + textWidth);
-			}
-			if (index == 0) {
-				// 记录第一个
-				mFirstTextRect.set(mCurrentTextRect);
+	/**
+	 * 用缓存的路径画选中的那块，沿着圆弧一半的方向平移出去
+	 */
+	private void drawCachedSelectPie(Canvas canvas, int position) {
+		mPiePaint.setColor(mDataSet.getColor(position));
+		WedgeGeometry geometry = mWedgePaths.getGeometry();
+		int saveCount = canvas.save();
+		canvas.translate(mPieNormalRectF.centerX(), mPieNormalRectF.centerY());
+		canvas.rotate(mRotate);
+		canvas.translate(geometry.getOffsetX(position, mSelectOffset), geometry.getOffsetY(position, mSelectOffset));
+		canvas.drawPath(mWedgePaths.getPath(position), mPiePaint);
+		canvas.restoreToCount(saveCount);
+	}
+
+	/**
+	 * 画选中那部分的饼状图，这里我们是要往外拉出来一部分的（过渡动画的时候角度每一帧都在变，用这个）
+	 *
+	 * @param offset 拉出来的距离，正常是mSelectOffset，过渡动画的时候是插值出来的
+	 */
+	private void drawSelectPie(Canvas canvas, int position, float startAngle, float sweepAngle, float offset) {
+		mPiePaint.setColor(mDataSet.getColor(position));
+		mPieSelectRectF.set(mPieNormalRectF);
+		// 找到圆弧一半的位置，要往这个方向拉出去（取整和原来按象限算的一样，都是往0截断）
+		float middle = LabelGeometry.middleAngle(startAngle, sweepAngle, mRotate);
+		int left = (int) (FastMath.cosDegrees(middle) * offset);
+		int top = (int) (FastMath.sinDegrees(middle) * offset);
+		mPieSelectRectF.offset(left, top);
+		canvas.drawArc(mPieSelectRectF, startAngle + mRotate, sweepAngle, true, mPiePaint);
+	}
+
+	/**
+	 * 画多层饼状图，从里往外一圈一圈画；半径外面的圈不画，也不会去算它的角度
+	 * 选中的那块最后画，沿着圆弧一半的方向拉出去
+	 */
+	private void drawSunburst(Canvas canvas) {
+		float ringWidth = getSunburstRingWidth();
+		int saveCount = canvas.save();
+		canvas.translate(getWidth() / 2, getHeight() / 2);
+		// 角度都是没有旋转的，转画布
+		canvas.rotate(mRotate);
+		int skipped = 0;
+		for (int depth = 0; depth * ringWidth < mPieRadius; depth++) {
+			SunburstLayout.Ring ring = mSunburst.getRing(depth);
+			if (ring == null) {
+				break;
 			}
-			// 画线和文字 这里会去判断重叠的问题（这里有一点要注意就是当去画最后一个的时候，判断了两次不仅和前面的判断了还和第一个判断了）
-			if(index == pieDataHolders.size() - 1 && pieDataHolders.size() > 1) {
-				if (mPreTextRect.isEmpty() || (!isCollisionWithRect(mPreTextRect, mCurrentTextRect) && !isCollisionWithRect(mFirstTextRect, mCurrentTextRect))){
-					mPreTextRect.set(mCurrentTextRect);
-					canvas.drawPath(linePath, mLinePaint);
-					canvas.drawText(textMarker, mCurrentTextRect.left, mCurrentTextRect.top + mTextHeight - mTextBottom, mTextPaint);
+			float inner = depth * ringWidth;
+			float outer = Math.min(inner + ringWidth, mPieRadius);
+			for (int index = 0; index < ring.getCount(); index++) {
+				if (ring.getSweepAngle(index) == 0) {
+					skipped++;
+					continue;
 				}
-			} else {
-				if (mPreTextRect.isEmpty() || !isCollisionWithRect(mPreTextRect, mCurrentTextRect)) {
-					mPreTextRect.set(mCurrentTextRect);
-					canvas.drawPath(linePath, mLinePaint);
-					canvas.drawText(textMarker, mCurrentTextRect.left, mCurrentTextRect.top + mTextHeight - mTextBottom, mTextPaint);
+				if (depth == mSunburstSelectDepth && index == mSunburstSelectIndex) {
+					continue;
 				}
+				mPiePaint.setColor(ring.getNode(index).getColor());
+				canvas.drawPath(sunburstSegment(inner, outer, ring.getStartAngle(index), ring.getSweepAngle(index)), mPiePaint);
 			}
 		}
+		if (mSunburstSelectDepth >= 0) {
+			SunburstLayout.Ring ring = mSunburst.getRing(mSunburstSelectDepth);
+			float start = ring.getStartAngle(mSunburstSelectIndex);
+			float sweep = ring.getSweepAngle(mSunburstSelectIndex);
+			float middle = start + sweep / 2;
+			float inner = mSunburstSelectDepth * ringWidth;
+			canvas.translate(FastMath.cosDegrees(middle) * mSelectOffset, FastMath.sinDegrees(middle) * mSelectOffset);
+			mPiePaint.setColor(ring.getNode(mSunburstSelectIndex).getColor());
+			canvas.drawPath(sunburstSegment(inner, Math.min(inner + ringWidth, mPieRadius), start, sweep), mPiePaint);
+		}
+		canvas.restoreToCount(saveCount);
+		if (mMetrics != null) {
+			mMetrics.setZeroSweepSkips(skipped);
+		}
 	}
 
 	/**
-	 * 判断两个矩形是否有重叠的部分
+	 * 圆心在原点的一块圆环，里面的半径是0的时候就是扇形
 	 */
-	private boolean isCollisionWithRect(Rect rect1, Rect rect2) {
-		return isCollisionWithRect(rect1.left, rect1.top, rect1.width(), rect1.height(), rect2.left, rect2.top, rect2.width(),
-								   rect2.height());
+	private Path sunburstSegment(float inner, float outer, float startAngle, float sweepAngle) {
+		Path path = mSunburstPath;
+		path.rewind();
+		mSunburstOuterRectF.set(-outer, -outer, outer, outer);
+		if (sweepAngle >= 360) {
+			// 整圈的arcTo画不出来，用两个圆，方向相反中间就是空的
+			path.addCircle(0, 0, outer, Path.Direction.CW);
+			if (inner > 0) {
+				path.addCircle(0, 0, inner, Path.Direction.CCW);
+			}
+			return path;
+		}
+		if (inner <= 0) {
+			path.moveTo(0, 0);
+			path.arcTo(mSunburstOuterRectF, startAngle, sweepAngle, false);
+		} else {
+			mSunburstInnerRectF.set(-inner, -inner, inner, inner);
+			path.arcTo(mSunburstOuterRectF, startAngle, sweepAngle, true);
+			path.arcTo(mSunburstInnerRectF, startAngle + sweepAngle, -sweepAngle, false);
+		}
+		path.close();
+		return path;
+	}
+
+	private float getSunburstRingWidth() {
+		return mSunburstRingWidth > 0 ? mSunburstRingWidth : mPieRadius / DEFAULT_SUNBURST_RINGS;
 	}
 
 	/**
-	 * 判断两个矩形是否有重叠的部分
+	 * 多层饼状图点击的时候找是哪一圈的哪一块：到圆心的距离算圈，角度在这一圈里面二分查找
+	 * 点了已经选中的那块、空的地方、圆外面都是取消选中
 	 */
-	private boolean isCollisionWithRect(int x1, int y1, int w1, int h1, int x2, int y2, int w2, int h2) {
-		if (x1 >= x2 && x1 >= x2 + w2) {
-			return false;
-		} else if (x1 <= x2 && x1 + w1 <= x2) {
-			return false;
-		} else if (y1 >= y2 && y1 >= y2 + h2) {
-			return false;
-		} else if (y1 <= y2 && y1 + h1 <= y2) {
-			return false;
+	private void selectSunburstNode(float x, float y) {
+		int depth = -1;
+		int index = -1;
+		if (inCircle(x, y)) {
+			float distance = (float) Math.sqrt(FastMath.distanceSquare(x, y, mCenterX, mCenterY));
+			depth = (int) (distance / getSunburstRingWidth());
+			index = mSunburst.indexOf(depth, action2Angle(x, y), mRotate);
+		}
+		if (index < 0 || (depth == mSunburstSelectDepth && index == mSunburstSelectIndex)) {
+			depth = -1;
+			index = -1;
+		}
+		mSunburstSelectDepth = depth;
+		mSunburstSelectIndex = index;
+		if (mSunburstListener != null) {
+			if (index < 0) {
+				mSunburstListener.onNoNodeSelect();
+			} else {
+				mSunburstListener.onNodeSelect(mSunburst.getRing(depth).getNode(index));
+			}
 		}
-		return true;
 	}
 
 	/**
-	 * 设置饼状图数据(给外部调用的)
+	 * 画文字，位置和文字都是提前分配好的，这里不创建对象
 	 */
-	public void setPieData(List<PieDataHolder> pieDataList) {
-		if (pieDataList == null || pieDataList.size() == 0) {
+	private void drawText(Canvas canvas) {
+		int count = mDataSet.getCount();
+		if (count <= 0) {
 			return;
 		}
-		mRotate = 0;
-		pieDataHolders.clear();
-		pieDataHolders.addAll(pieDataList);
-		// 计算每个饼状图的比例，开始角度，扫过的角度
-		float sum = 0;
-		for (PieDataHolder pieDataHolder : pieDataHolders) {
-			sum += pieDataHolder.mValue;
-		}
-		float preSum = 0; // 当前位置之前的总的值，算开始角度用的，总共360
-		for (int index = 0; index < pieDataList.size(); index++) {
-			PieDataHolder pieDataHolder = pieDataHolders.get(index);
-			pieDataHolder.mIsSelect = false;
-			pieDataHolder.mPosition = index;
-			//pieDataHolder.mRatio = Float.parseFloat(mDecimalFormat.format(pieDataHolder.mValue / sum));
-			//pieDataHolder.mRatio = Float.parseFloat(mDecimalFormat.format(pieDataHolder.mValue / sum));
-			pieDataHolder.mRatio = pieDataHolder.mValue / sum;
-			pieDataHolder.mStartAngel = preSum / sum *360f;
-			preSum += pieDataHolder.mValue;
-			if (index == pieDataList.size() -1) {
-				// 如果是最后一个 目的是避免精度的问题
-				pieDataHolder.mSweepAngel = 360 - pieDataHolder.mStartAngel;
-			} else {
-				pieDataHolder.mSweepAngel = pieDataHolder.mRatio*360;
-			}
+		mTextPaint.setColor(mTextColor);
+		mLinePaint.setColor(mTextColor);
+		// 全局摆放的时候文字可以放满整个控件的高度
+		mLabelLayout.setPlacement(mLabelLayout.getPlacement(), 0, getHeight());
+		// 线和文字的位置都在这里算好，重叠的不画；数据、大小、旋转角度、选中都没变的时候直接用上一次的结果
+		long start = mMetrics != null ? System.nanoTime() : 0;
+		mLabelLayout.update(mDataVersion, getWidth() / 2, getHeight() / 2, mStartAngles, mSweepAngles, mLabelText, count,
+							mRotate, mSelectPosition, mPieRadius, mSelectOffset, mMarkerLine1, mMarkerLine2, mTextHeight);
+		if (mMetrics != null) {
+			mMetrics.record(PieMetrics.STAGE_LABEL_LAYOUT, System.nanoTime() - start);
 		}
-		// 这里要调整一下比例，因为精度的原因，有的时候可能加起来不是100%，解决办法呢就是最大的比例直接用100减掉其他的
-		int maxRatioPosition = 0;
-		float maxRatioValue = 0;
-		for (PieDataHolder pieDataHolder : pieDataHolders) {
-			if (maxRatioValue < pieDataHolder.mRatio) {
-				maxRatioValue = pieDataHolder.mRatio;
-				maxRatioPosition = pieDataHolder.mPosition;
+		char[] chars = mLabelText.getChars();
+		int hidden = 0;
+		for (int index = 0; index < count; index++) {
+			if (!mLabelLayout.isVisible(index)) {
+				if (mSweepAngles[index] != 0) {
+					// 重叠了没有画的
+					hidden++;
+				}
+				continue;
 			}
+			// 先延着半径（全局摆放的时候拐点会跟着文字上下挪），再水平
+			mLinePoints[0] = mLabelLayout.getStartX(index);
+			mLinePoints[1] = mLabelLayout.getStartY(index);
+			mLinePoints[2] = mLabelLayout.getElbowX(index);
+			mLinePoints[3] = mLabelLayout.getLineY(index);
+			mLinePoints[4] = mLinePoints[2];
+			mLinePoints[5] = mLinePoints[3];
+			mLinePoints[6] = mLabelLayout.getEndX(index);
+			mLinePoints[7] = mLinePoints[3];
+			canvas.drawLines(mLinePoints, mLinePaint);
+			canvas.drawText(chars, mLabelText.getOffset(index), mLabelText.getLength(index), mLabelLayout.getTextLeft(index),
+							mLabelLayout.getTextTop(index) + mTextHeight - mTextBottom, mTextPaint);
 		}
-		float sumWithOutMax = 0;
-		PieDataHolder maxHolder = null;
-		for (PieDataHolder pieDataHolder : pieDataHolders) {
-			if (pieDataHolder.mPosition != maxRatioPosition) {
-				sumWithOutMax += pieDataHolder.mRatio;
-			} else {
-				maxHolder = pieDataHolder;
-			}
+		if (mMetrics != null) {
+			mMetrics.setHiddenLabels(hidden);
 		}
-		if (maxHolder != null) {
-			maxHolder.mRatio = 1 - Float.parseFloat(mDecimalFormat.format(sumWithOutMax));;
+	}
+
+	/**
+	 * 拼每一块的文字并量好宽度，后台线程用的，每一块都重新格式化
+	 * 不用成员变量，后台线程也可以调用（measurer里面的paint要用单独的一份）
+	 */
+	private static void initLabelText(PieDataSet dataSet, LabelFormatter formatter, TextMeasurer measurer,
+									  LabelTextBuffer labelText) {
+		int count = dataSet.getCount();
+		labelText.reset(count);
+		for (int index = 0; index < count; index++) {
+			CharSequence textMarker = formatter.format(dataSet, index);
+			String text = textMarker == null ? "" : textMarker.toString();
+			labelText.append(text);
+			labelText.setWidth(index, measurer.measure(text));
 		}
-		invalidate();
 	}
 
 	/**
-	 * 设置PieGraph的监听（外部调用）
+	 * 量文字宽度，先查所有PieGraph共用的缓存（按文字大小和文字），没有的时候才用paint量
 	 */
-	public void setOnPieGraphListener(OnPieGraphListener listener) {
-		mListener = listener;
+	private static TextMeasurer newTextMeasurer(final Paint textPaint) {
+		final TextMeasurer paintMeasurer = new TextMeasurer() {
+			@Override
+			public float measure(String text) {
+				return textPaint.measureText(text);
+			}
+		};
+		return new TextMeasurer() {
+			@Override
+			public float measure(String text) {
+				return TEXT_WIDTH_CACHE.get(text, textPaint.getTextSize(), paintMeasurer);
+			}
+		};
 	}
 
 	/**
-	 * 放出一些事件来
+	 * 现在用的文字格式
 	 */
-	private float mPreX;
-	private float mPreY;
-	private boolean mDealMove = false;
-	@Override
-	public boolean onTouchEvent(MotionEvent event) {
-		if (pieDataHolders == null || pieDataHolders.size() <= 0) {
-			return false;
-		}
-		float eventX = event.getX();
+	private LabelFormatter getLabelFormatter() {
+		return mLabelFormatter != null ? mLabelFormatter : LabelFormat.defaultFormatter(mIsDrawRatio);
+	}
+
+	/**
+	 * 设置饼状图数据(给外部调用的)
+	 */
+	public void setPieData(List<PieDataHolder> pieDataList) {
+		if (pieDataList == null || pieDataList.size() == 0) {
+			return;
+		}
+		PieDataSet dataSet = new PieDataSet(pieDataList.size());
+		for (int index = 0; index < pieDataList.size(); index++) {
+			PieDataHolder pieDataHolder = pieDataList.get(index);
+			dataSet.add(pieDataHolder.mValue, pieDataHolder.mColor, pieDataHolder.mMarker);
+		}
+		mAsyncGeneration.incrementAndGet();
+		pieDataHolders.clear();
+		pieDataHolders.addAll(pieDataList);
+		applyPieData(dataSet);
+	}
+
+	/**
+	 * 设置按列存放的饼状图数据(给外部调用的)，数据量大的时候用这个，每一块不用创建对象
+	 * 设置进来以后PieGraph直接用这个对象，之后要改数据用{@link #updateValue}、{@link #insert}、{@link #remove}、{@link #append}
+	 */
+	public void setPieData(PieDataSet dataSet) {
+		if (dataSet == null || dataSet.getCount() == 0) {
+			return;
+		}
+		mAsyncGeneration.incrementAndGet();
+		pieDataHolders.clear();
+		applyPieData(dataSet);
+	}
+
+	/**
+	 * 实时数据用的（{@link PieLiveBinding}每一帧最多调用一次），和setPieData不一样的是旋转和选中都保留
+	 */
+	void setLivePieData(PieDataSet dataSet) {
+		finishTransition();
+		mAsyncGeneration.incrementAndGet();
+		pieDataHolders.clear();
+		mSunburst = null;
+		mDataSet = dataSet;
+		if (mSelectPosition >= dataSet.getCount()) {
+			mSelectPosition = -1;
+		}
+		refreshData();
+		invalidate();
+	}
+
+	/**
+	 * 异步设置饼状图数据(给外部调用的)
+	 * 比例、角度、点击索引、文字都在executor里面算好，然后回到主线程一次性换上去；
+	 * 还没算完又设置了新的数据的话，旧的结果直接丢掉
+	 */
+	public void setPieDataAsync(List<PieDataHolder> pieDataList, Executor executor) {
+		if (pieDataList == null || pieDataList.size() == 0) {
+			return;
+		}
+		// 先复制一份列表，外部之后再改列表也不影响
+		List<PieDataHolder> holders = new ArrayList<>(pieDataList);
+		prepareAsync(null, holders, executor);
+	}
+
+	/**
+	 * 异步设置按列存放的饼状图数据(给外部调用的)，设置进来以后外部不要再修改dataSet
+	 *
+	 * @see #setPieDataAsync(List, Executor)
+	 */
+	public void setPieDataAsync(PieDataSet dataSet, Executor executor) {
+		if (dataSet == null || dataSet.getCount() == 0) {
+			return;
+		}
+		prepareAsync(dataSet, null, executor);
+	}
+
+	/**
+	 * 后台准备数据
+	 *
+	 * @param dataSet 按列存放的数据，和holders二选一
+	 * @param holders List的数据，和dataSet二选一
+	 */
+	private void prepareAsync(final PieDataSet dataSet, final List<PieDataHolder> holders, Executor executor) {
+		final int generation = mAsyncGeneration.incrementAndGet();
+		// paint不是线程安全的，后台量文字用单独的一份
+		final TextMeasurer measurer = newTextMeasurer(new TextPaint(mTextPaint));
+		final LabelFormatter formatter = getLabelFormatter();
+		final PieMetrics metrics = mMetrics;
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (generation != mAsyncGeneration.get()) {
+					return;
+				}
+				long start = metrics != null ? System.nanoTime() : 0;
+				PieDataSet preparedSet = dataSet;
+				if (preparedSet == null) {
+					preparedSet = new PieDataSet(holders.size());
+					for (int index = 0; index < holders.size(); index++) {
+						PieDataHolder pieDataHolder = holders.get(index);
+						preparedSet.add(pieDataHolder.mValue, pieDataHolder.mColor, pieDataHolder.mMarker);
+					}
+				}
+				preparedSet.computeAngles();
+				if (generation != mAsyncGeneration.get()) {
+					return;
+				}
+				AngleIndex angleIndex = new AngleIndex();
+				angleIndex.set(preparedSet.getStartAngles(), preparedSet.getSweepAngles(), preparedSet.getCount());
+				LabelTextBuffer labelText = new LabelTextBuffer();
+				initLabelText(preparedSet, formatter, measurer, labelText);
+				if (metrics != null) {
+					metrics.record(PieMetrics.STAGE_MODEL_BUILD, System.nanoTime() - start);
+				}
+				final PreparedData prepared = new PreparedData(preparedSet, holders, angleIndex, labelText);
+				post(new Runnable() {
+					@Override
+					public void run() {
+						// 回到主线程以后再确认一次，中间可能又设置了数据
+						if (generation == mAsyncGeneration.get()) {
+							applyPreparedData(prepared);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * 把后台算好的数据一次性换上去
+	 */
+	private void applyPreparedData(PreparedData prepared) {
+		boolean animate = beginTransition();
+		if (!animate) {
+			mRotate = 0;
+		}
+		mSelectPosition = -1;
+		mSunburst = null;
+		mDataSet = prepared.mDataSet;
+		mStartAngles = mDataSet.getStartAngles();
+		mSweepAngles = mDataSet.getSweepAngles();
+		mAngleIndex = prepared.mAngleIndex;
+		mAngleIndex.setRotate(mRotate);
+		mLabelText = prepared.mLabelText;
+		pieDataHolders.clear();
+		if (prepared.mHolders != null) {
+			pieDataHolders.addAll(prepared.mHolders);
+		}
+		syncHolders();
+		mDataVersion++;
+		mDirty |= DIRTY_DATA;
+		if (animate) {
+			startTransition();
+		}
+		invalidate();
+	}
+
+	/**
+	 * 换了一份新的数据，选中重置，然后刷新；有过渡动画的时候旋转保留，没有的时候旋转也重置
+	 */
+	private void applyPieData(PieDataSet dataSet) {
+		boolean animate = beginTransition();
+		if (!animate) {
+			mRotate = 0;
+			mAngleIndex.setRotate(mRotate);
+		}
+		mSelectPosition = -1;
+		mSunburst = null;
+		mDataSet = dataSet;
+		refreshData();
+		if (animate) {
+			startTransition();
+		}
+		invalidate();
+	}
+
+	/**
+	 * 换数据之前记下现在的样子，返回这次要不要做过渡动画
+	 */
+	private boolean beginTransition() {
+		if (mTransitionDuration <= 0 || mDataSet.getCount() == 0) {
+			return false;
+		}
+		if (mTransitionRunning) {
+			// 动画还没完，从当前插值到的地方接着过渡
+			mTransition.setFromCurrent();
+			mTransitionAnimator.cancel();
+		} else {
+			if (mDataSet.isAnglesDirty()) {
+				refreshData();
+			}
+			mTransition.setFrom(mStartAngles, mSweepAngles, mDataSet.getCount(), mSelectPosition);
+		}
+		return true;
+	}
+
+	/**
+	 * 新数据的角度算好以后开始过渡动画
+	 */
+	private void startTransition() {
+		mTransition.setTo(mStartAngles, mSweepAngles, mDataSet.getCount(), mSelectPosition);
+		mTransitionRunning = true;
+		mTransitionAnimator.setDuration(mTransitionDuration);
+		mTransitionAnimator.start();
+	}
+
+	/**
+	 * 直接跳到过渡动画的结尾（增量修改数据、点击的时候用新的样子）
+	 */
+	private void finishTransition() {
+		if (mTransitionRunning) {
+			mTransitionAnimator.end();
+		}
+	}
+
+	/**
+	 * 数据改过还没画的时候（updateValue、append这些以后）先刷新一遍，保证角度数组、点击索引、文字、holder都是新的
+	 * 不能只调mDataSet.computeAngles()，那样onDraw会以为已经刷新过了
+	 */
+	private void ensureDataFresh() {
+		if (mDataSet.isAnglesDirty()) {
+			refreshData();
+		}
+	}
+
+	/**
+	 * 计算每个饼状图的比例，开始角度，扫过的角度，以及文字
+	 */
+	private void refreshData() {
+		long start = mMetrics != null ? System.nanoTime() : 0;
+		mDataSet.computeAngles();
+		mStartAngles = mDataSet.getStartAngles();
+		mSweepAngles = mDataSet.getSweepAngles();
+		mAngleIndex.set(mStartAngles, mSweepAngles, mDataSet.getCount());
+		mLabelTextCache.update(mDataSet, getLabelFormatter(), mTextMeasurer, mLabelText);
+		syncHolders();
+		mDataVersion++;
+		mDirty |= DIRTY_DATA;
+		if (mMetrics != null) {
+			mMetrics.record(PieMetrics.STAGE_MODEL_BUILD, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * 画完一帧以后，到时间了就把统计回调出去
+	 */
+	private void reportMetrics() {
+		if (mMetricsListener != null && mMetrics.shouldReport(System.nanoTime())) {
+			mMetricsListener.onMetrics(mMetrics.snapshot());
+		}
+	}
+
+	/**
+	 * 算好的比例和角度回写到holder里面（用List设置数据的时候才有holder）
+	 */
+	private void syncHolders() {
+		float[] ratios = mDataSet.getRatios();
+		for (int index = 0; index < pieDataHolders.size(); index++) {
+			PieDataHolder pieDataHolder = pieDataHolders.get(index);
+			pieDataHolder.mIsSelect = index == mSelectPosition;
+			pieDataHolder.mPosition = index;
+			pieDataHolder.mRatio = ratios[index];
+			pieDataHolder.mStartAngel = mStartAngles[index];
+			pieDataHolder.mSweepAngel = mSweepAngles[index];
+		}
+	}
+
+	/**
+	 * 修改一块的值(给外部调用的)，旋转和选中都保留
+	 * 这个调用本身是O(log n)（只改前缀和），点击查找和回调给监听的holder也直接用前缀和；
+	 * 但是总和变了所有块的角度和百分比都会变，所以下一帧还是O(n)：重新算角度数组、点击索引、holder、
+	 * 所有文字的位置（文字只重新格式化值或者百分比变了的块）。改很多块的时候连着调，只在下一帧算一次
+	 */
+	public void updateValue(int index, double value) {
+		finishTransition();
+		mDataSet.setValue(index, value);
+		if (index < pieDataHolders.size()) {
+			pieDataHolders.get(index).mValue = value;
+		}
+		invalidate();
+	}
+
+	/**
+	 * 在index的位置插入一块(给外部调用的)，旋转和选中都保留
+	 * 要挪数组，是O(n)，前缀和下一次用的时候重新建（O(n)）；下一帧和{@link #updateValue}一样是O(n)，
+	 * 插入位置后面的块文字都要重新格式化
+	 */
+	public void insert(int index, double value, int color, String label) {
+		finishTransition();
+		mDataSet.insert(index, value, color, label);
+		if (!pieDataHolders.isEmpty()) {
+			pieDataHolders.add(index, new PieDataHolder(value, color, label));
+		}
+		if (mSelectPosition >= index) {
+			mSelectPosition++;
+		}
+		invalidate();
+	}
+
+	/**
+	 * 删除一块(给外部调用的)，旋转保留，删掉的是选中的那块的时候取消选中
+	 * 代价和{@link #insert}一样
+	 */
+	public void remove(int index) {
+		finishTransition();
+		mDataSet.remove(index);
+		if (!pieDataHolders.isEmpty()) {
+			pieDataHolders.remove(index);
+		}
+		if (mSelectPosition == index) {
+			mSelectPosition = -1;
+		} else if (mSelectPosition > index) {
+			mSelectPosition--;
+		}
+		invalidate();
+	}
+
+	/**
+	 * 在最后加一块(给外部调用的)，旋转和选中都保留
+	 * 这个调用本身是均摊O(log n)（前缀和在最后加一个），下一帧和{@link #updateValue}一样是O(n)
+	 */
+	public void append(double value, int color, String label) {
+		finishTransition();
+		mDataSet.add(value, color, label);
+		if (!pieDataHolders.isEmpty()) {
+			pieDataHolders.add(new PieDataHolder(value, color, label));
+		}
+		invalidate();
+	}
+
+	/**
+	 * 设置文字重叠的处理方式（外部调用）
+	 *
+	 * @param placement {@link LabelLayout#PLACEMENT_SEQUENTIAL}：重叠的不画（默认）
+	 *                  {@link LabelLayout#PLACEMENT_GLOBAL}：左右两列整体上下挪开，放不下的时候才不画
+	 */
+	public void setLabelPlacement(int placement) {
+		mLabelLayout.setPlacement(placement, 0, getHeight());
+		invalidate();
+	}
+
+	/**
+	 * 设置文字标记的格式（外部调用）
+	 * 格式化的结果按块缓存，一块的值、文字、百分比都没变的时候不会再调用formatter
+	 *
+	 * @param formatter null的时候用默认的格式（文字(百分比%)，pie_show_radio是true的时候只有百分比）
+	 */
+	public void setLabelFormatter(LabelFormatter formatter) {
+		if (formatter == mLabelFormatter) {
+			return;
+		}
+		mLabelFormatter = formatter;
+		if (mDataSet.isAnglesDirty()) {
+			// 数据还没算好，等refreshData的时候再格式化
+			return;
+		}
+		mLabelTextCache.update(mDataSet, getLabelFormatter(), mTextMeasurer, mLabelText);
+		mDataVersion++;
+		mDirty |= DIRTY_DATA;
+		invalidate();
+	}
+
+	/**
+	 * 打开或者关闭绘制的统计（外部调用）
+	 * 记录设置数据、画饼状图、算文字位置的耗时，重叠没画的文字、0度没画的块、每秒重绘的次数；
+	 * 关闭的时候（默认）什么都不记录，也不取时间
+	 */
+	public void setMetricsEnabled(boolean enabled) {
+		if (enabled == (mMetrics != null)) {
+			return;
+		}
+		mMetrics = enabled ? new PieMetrics() : null;
+	}
+
+	/**
+	 * 现在的统计（外部调用），没有打开的时候返回null
+	 */
+	public PieMetrics.Snapshot getMetricsSnapshot() {
+		return mMetrics != null ? mMetrics.snapshot() : null;
+	}
+
+	/**
+	 * 清空统计（外部调用）
+	 */
+	public void resetMetrics() {
+		if (mMetrics != null) {
+			mMetrics.reset();
+		}
+	}
+
+	/**
+	 * 设置统计的回调（外部调用），打开统计以后画完一帧的时候最多每秒回调一次，在主线程
+	 * 不重绘的时候不会回调，这时候用{@link #getMetrics()}取，每秒重绘次数会按现在的时间结算
+	 */
+	public void setOnMetricsListener(PieMetrics.Listener listener) {
+		mMetricsListener = listener;
+	}
+
+	/**
+	 * 设置按像素合并绘制的阈值（外部调用）
+	 * 圆弧长度小于这个值的连续几块合并成一组画，点击和回调拿到的还是真实的每一块
+	 *
+	 * @param minArcLength 圆弧长度（像素），小于等于0的时候不合并（默认）
+	 */
+	public void setLodArcThreshold(float minArcLength) {
+		mLodArcThreshold = minArcLength;
+		invalidate();
+	}
+
+	/**
+	 * 设置换数据时候的过渡动画时长（外部调用）
+	 * 有动画的时候每一块的角度和选中偏移从旧的过渡到新的，旋转保留
+	 *
+	 * @param duration 毫秒，小于等于0的时候没有动画直接换（默认）
+	 */
+	public void setTransitionDuration(long duration) {
+		mTransitionDuration = duration;
+		if (duration <= 0) {
+			finishTransition();
+		}
+	}
+
+	/**
+	 * 设置是否用缓存的图层画饼状图（外部调用）
+	 * 打开以后所有的块只在数据、半径、合并阈值变化的时候录一次，拖动旋转的时候每一帧只是旋转画布，
+	 * 块数很多又经常旋转的时候用；换选中不用重新录，画图层的时候把选中的那块挖掉，它和文字还是每一帧直接画
+	 */
+	public void setPieLayerEnabled(boolean enabled) {
+		mPieLayerEnabled = enabled;
+		if (!enabled) {
+			// 关掉的时候录下来的东西也释放掉
+			mPieLayer = null;
+			mPieLayerVersion = -1;
+		}
+		invalidate();
+	}
+
+	/**
+	 * 把现在的数据、旋转、选中写成快照文件（外部调用），块很多的时候用，之后可以{@link PieSnapshot#read(File)}读出来
+	 * 再{@link #restoreSnapshot}，恢复的时候不用重新算角度
+	 */
+	public void writeSnapshot(File file) throws IOException {
+		ensureDataFresh();
+		PieSnapshot.write(mDataSet, mRotate, mSelectPosition, file);
+	}
+
+	/**
+	 * 从快照恢复数据、旋转、选中（外部调用），角度和百分比直接用快照里面的
+	 */
+	public void restoreSnapshot(PieSnapshot snapshot) {
+		finishTransition();
+		stopFling();
+		mAsyncGeneration.incrementAndGet();
+		pieDataHolders.clear();
+		mSunburst = null;
+		mSelectPosition = -1;
+		mDataSet = snapshot.getDataSet();
+		refreshData();
+		mRotate = snapshot.getRotate();
+		mAngleIndex.setRotate(mRotate);
+		mDirty |= DIRTY_ROTATION;
+		int selectIndex = snapshot.getSelectIndex();
+		if (selectIndex < mDataSet.getCount()) {
+			setSelectPosition(selectIndex);
+		}
+		invalidate();
+	}
+
+	/**
+	 * 设置多层饼状图数据（外部调用），比如 省 -> 市，每一层是一圈，从里往外画
+	 * 每一圈要画的时候才算角度，半径外面的圈不会算；多层的时候不画文字标记，再调用setPieData回到普通的饼状图
+	 *
+	 * @param root 根节点（本身不画），它的子节点是最里面一圈
+	 */
+	public void setSunburstData(SunburstNode root) {
+		if (root == null) {
+			return;
+		}
+		finishTransition();
+		stopFling();
+		mAsyncGeneration.incrementAndGet();
+		if (mSunburst == null) {
+			mSunburst = new SunburstLayout();
+		}
+		mSunburst.setRoot(root);
+		mSunburstSelectDepth = -1;
+		mSunburstSelectIndex = -1;
+		mRotate = 0;
+		mAngleIndex.setRotate(mRotate);
+		invalidate();
+	}
+
+	/**
+	 * setSunburstData以后又往节点上加了子节点（外部调用），重新算每一圈并取消选中
+	 * 不调用的话下一次绘制也会发现节点变了，但是选中的下标可能已经对不上了
+	 */
+	public void notifySunburstChanged() {
+		if (mSunburst == null) {
+			return;
+		}
+		mSunburst.invalidate();
+		mSunburstSelectDepth = -1;
+		mSunburstSelectIndex = -1;
+		invalidate();
+	}
+
+	/**
+	 * 设置多层饼状图每一圈的宽度（外部调用）
+	 *
+	 * @param ringWidth 像素，小于等于0的时候半径平分成3圈（默认）
+	 */
+	public void setSunburstRingWidth(float ringWidth) {
+		mSunburstRingWidth = ringWidth;
+		invalidate();
+	}
+
+	/**
+	 * 设置多层饼状图的选中监听（外部调用）
+	 */
+	public void setOnSunburstListener(OnSunburstListener listener) {
+		mSunburstListener = listener;
+	}
+
+	/**
+	 * 设置PieGraph的监听（外部调用）
+	 */
+	public void setOnPieGraphListener(OnPieGraphListener listener) {
+		mListener = listener;
+	}
+
+	/**
+	 * 放出一些事件来
+	 */
+	private float mPreX;
+	private float mPreY;
+	private boolean mDealMove = false;
+	@Override
+	public boolean onTouchEvent(MotionEvent event) {
+		if (mSunburst == null && mDataSet.getCount() <= 0) {
+			return false;
+		}
+		float eventX = event.getX();
 		float eventY = event.getY();
+		if (event.getAction() == MotionEvent.ACTION_DOWN) {
+			// 按下去的时候惯性旋转停下来
+			stopFling();
+		}
 		if(event.getAction() == MotionEvent.ACTION_DOWN && !inCircle(eventX, eventY)) {
 			// down事件的时候不在园内，这个事件我们不要了
-			clearHolderSelect(-1);
+			if (mSunburst != null) {
+				selectSunburstNode(eventX, eventY);
+				invalidate();
+				return false;
+			}
+			setSelectPosition(-1);
 			invalidate();
 			if (mListener != null) {
 				mListener.onNoPieSelect();
@@ -562,11 +1570,21 @@ public class PieGraph extends View {
 		}
 		switch (event.getAction()) {
 			case MotionEvent.ACTION_DOWN:
+				finishTransition();
 				mPreX = event.getX();
 				mPreY = event.getY();
 				mDealMove = false;
+				if (mVelocityTracker == null) {
+					mVelocityTracker = VelocityTracker.obtain();
+				} else {
+					mVelocityTracker.clear();
+				}
+				mVelocityTracker.addMovement(event);
 				return true;
 			case MotionEvent.ACTION_MOVE:
+				if (mVelocityTracker != null) {
+					mVelocityTracker.addMovement(event);
+				}
 				// 想让饼状图旋转起来
 				if (!inCircle(eventX, eventY)) {
 					// 没有在园内 这个事件结束了，我们不要了
@@ -575,29 +1593,46 @@ public class PieGraph extends View {
 				}
 				float offsetX = eventX - mPreX;
 				float offsetY = eventY - mPreY;
-				if (mCanRotate && Math.sqrt(offsetX * offsetX + offsetY *offsetY) >= mTouchSlop) {
+				if (mCanRotate && offsetX * offsetX + offsetY * offsetY >= mTouchSlop * mTouchSlop) {
 					if(!mDealMove) {
 						mDealMove = true;
 					}
-					mRotate = mRotate + action2Angle(eventX, eventY) - action2Angle(mPreX, mPreY);
+					// 跨过0度的时候差值换到(-180, 180]
+					float degrees = action2Angle(eventX, eventY) - action2Angle(mPreX, mPreY);
+					if (degrees > 180) {
+						degrees -= 360;
+					} else if (degrees <= -180) {
+						degrees += 360;
+					}
+					rotateBy(degrees);
 					mPreX = eventX;
 					mPreY = eventY;
-					invalidate();
 				}
 				return true;
+			case MotionEvent.ACTION_CANCEL:
+				recycleVelocityTracker();
+				break;
 			case MotionEvent.ACTION_UP:
-				if (!mDealMove) {
+				if (mDealMove) {
+					// 松手的时候还在转的话接着惯性转
+					if (mVelocityTracker != null) {
+						mVelocityTracker.addMovement(event);
+						startFling(eventX, eventY);
+					}
+					// 拖动攒着没画的那一点角度画出来
+					invalidate();
+				} else if (mSunburst != null) {
+					selectSunburstNode(eventX, eventY);
+					invalidate();
+				} else {
 					// 这里我们去判断是否是点击事件
 					if (inCircle(eventX, eventY)) {
 						int position = getHolderPositionByAngle(action2Angle(eventX, eventY));
-						clearHolderSelect(position);
-						PieDataHolder holder = getHolderByPosition(position);
-						if(holder != null) {
-							holder.mIsSelect = !holder.mIsSelect;
-						}
+						// 点了已经选中的那块就取消选中
+						setSelectPosition(position == mSelectPosition ? -1 : position);
 					} else {
 						// 不在圆内，清空掉以前的选择
-						clearHolderSelect(-1);
+						setSelectPosition(-1);
 					}
 					if (mListener != null) {
 						// 找出选中的那个
@@ -611,104 +1646,111 @@ public class PieGraph extends View {
 					invalidate();
 
 				}
+				recycleVelocityTracker();
 				break;
 		}
 		return true;
 	}
 
 	/**
-	 * 点击的点映射到圆上的角度
+	 * 转一个角度，在半径上移动不到半个像素的时候先攒着不重绘
 	 */
-	private int action2Angle(float x, float y) {
-		int angle = 0;
-		// 第一象限
-		if (x >= getMeasuredWidth() / 2 && y >= getMeasuredHeight() / 2) {
-			angle = (int) (Math.atan((y - getMeasuredHeight() / 2) * 1.0f / (x - getMeasuredWidth() / 2)) * 180 / Math.PI);
+	private void rotateBy(float degrees) {
+		mRotate += degrees;
+		mDirty |= DIRTY_ROTATION;
+		mAngleIndex.setRotate(mRotate);
+		if (RotationFling.arcLength(mRotate - mDrawnRotate, mPieRadius) >= SUB_PIXEL_THRESHOLD) {
+			invalidate();
 		}
-		// 第二象限
-		if (x <= getMeasuredWidth() / 2 && y >= getMeasuredHeight() / 2) {
-			angle = (int) (Math.atan((getMeasuredWidth() / 2 - x) / (y - getMeasuredHeight() / 2)) * 180 / Math.PI + 90);
+	}
+
+	/**
+	 * 按松手时候手指的速度开始惯性旋转
+	 */
+	private void startFling(float x, float y) {
+		mVelocityTracker.computeCurrentVelocity(1000, mMaxFlingVelocity);
+		float velocity = RotationFling.angularVelocity(x - getWidth() / 2, y - getHeight() / 2,
+														mVelocityTracker.getXVelocity(), mVelocityTracker.getYVelocity());
+		// 最小的滑动速度换算成半径上的角速度，比这个慢的不转，转到比这个慢的时候停
+		float stopVelocity = mPieRadius <= 0 ? 0 : (float) Math.toDegrees(mMinFlingVelocity / mPieRadius);
+		if (mFling.start(velocity, stopVelocity)) {
+			mFlingFrameTime = 0;
+			Choreographer.getInstance().postFrameCallback(mFlingCallback);
 		}
-		// 第三象限
-		if (x <= getMeasuredWidth() / 2 && y <= getMeasuredHeight() / 2) {
-			angle = (int) (Math.atan((getMeasuredHeight() / 2 - y) / (getMeasuredWidth() / 2 - x)) * 180 / Math.PI + 180);
+	}
+
+	private void stopFling() {
+		if (!mFling.isFinished()) {
+			mFling.stop();
+			Choreographer.getInstance().removeFrameCallback(mFlingCallback);
+			invalidate();
 		}
-		// 第四象限
-		if (x >= getMeasuredWidth() / 2 && y <= getMeasuredHeight() / 2) {
-			angle = (int) (Math.atan((x - getMeasuredWidth() / 2) / (getMeasuredHeight() / 2 - y)) * 180 / Math.PI + 270);
+	}
+
+	private void recycleVelocityTracker() {
+		if (mVelocityTracker != null) {
+			mVelocityTracker.recycle();
+			mVelocityTracker = null;
 		}
-		return angle;
 	}
 
 	/**
-	 * 通过角度去找我们holder
+	 * 点击的点映射到圆上的角度
 	 */
-	private int getHolderPositionByAngle(int angle) {
-		if (pieDataHolders == null || pieDataHolders.size() <= 0) {
-			return -1;
-		}
-		for (PieDataHolder pieDataHolder : pieDataHolders) {
-			// 这里我们拿到真正的开始角度
-			float realStartAngel = (pieDataHolder.mStartAngel + mRotate) % 360;
-			if (realStartAngel < 0) {
-				realStartAngel += 360;
-			}
-			if (realStartAngel + pieDataHolder.mSweepAngel > 360) {
-				if (angle >= realStartAngel) {
-					return pieDataHolder.mPosition;
-				} else {
-					if (angle < realStartAngel + pieDataHolder.mSweepAngel - 360) {
-						return pieDataHolder.mPosition;
-					}
-				}
-			} else {
-				if (angle >= realStartAngel && angle < realStartAngel + pieDataHolder.mSweepAngel ) {
-					return pieDataHolder.mPosition;
-				}
-			}
-		}
-		return -1;
+	private float action2Angle(float x, float y) {
+		// 不截断成整数度，很小的块也能点中
+		return FastMath.atan2Degrees(y - mCenterY, x - mCenterX);
 	}
 
 	/**
-	 * 通过position去找到holder
+	 * 通过角度去找我们holder的位置，二分查找，返回的就是数据里面的下标
 	 */
-	private PieDataHolder getHolderByPosition(int position) {
-		if (pieDataHolders == null || pieDataHolders.size() <= 0) {
-			return null;
+	private int getHolderPositionByAngle(float angle) {
+		if (mDataSet.getCount() <= 0) {
+			return -1;
 		}
-		for (PieDataHolder pieDataHolder : pieDataHolders) {
-			if(pieDataHolder.mPosition == position) {
-				return pieDataHolder;
-			}
+		if (mDataSet.isAnglesDirty()) {
+			// 数据刚改过，角度还没重新算，直接用前缀和找
+			return mDataSet.indexOfAngle(mAngleIndex.toLocalAngle(angle));
 		}
-		return null;
+		return mAngleIndex.indexOf(angle);
 	}
 
 	/**
 	 * 找到选中的那个holder
 	 */
 	private PieDataHolder findSelectHolder() {
-		if (pieDataHolders == null || pieDataHolders.size() <= 0) {
+		if (mSelectPosition < 0) {
 			return null;
 		}
-		for (PieDataHolder pieDataHolder : pieDataHolders) {
-			if(pieDataHolder.mIsSelect) {
-				return pieDataHolder;
+		if (mSelectPosition < pieDataHolders.size()) {
+			PieDataHolder holder = pieDataHolders.get(mSelectPosition);
+			if (mDataSet.isAnglesDirty()) {
+				// 改过数据还没画，holder里面的比例和角度是旧的，从前缀和里面取新的，O(log n)
+				holder.readAngles(mDataSet, mSelectPosition);
+				holder.mPosition = mSelectPosition;
 			}
+			return holder;
 		}
-		return null;
+		// 用PieDataSet设置的数据没有现成的holder，回调的时候才创建一个
+		return PieDataHolder.from(mDataSet, mSelectPosition);
 	}
 
 	/**
-	 * 清除掉之前的选择，position位置的状态保留
-	 * @param position: 这个位置的状态不清除
+	 * 设置选中的位置，之前选中的自动取消
+	 * @param position: 选中的位置，-1表示都不选中
 	 */
-	private void clearHolderSelect(int position) {
-		for (PieDataHolder pieDataHolder : pieDataHolders) {
-			if(position != pieDataHolder.mPosition) {
-				pieDataHolder.mIsSelect = false;
-			}
+	private void setSelectPosition(int position) {
+		if (position == mSelectPosition) {
+			return;
+		}
+		mDirty |= DIRTY_SELECTION;
+		if (mSelectPosition >= 0 && mSelectPosition < pieDataHolders.size()) {
+			pieDataHolders.get(mSelectPosition).mIsSelect = false;
+		}
+		mSelectPosition = position;
+		if (position >= 0 && position < pieDataHolders.size()) {
+			pieDataHolders.get(position).mIsSelect = true;
 		}
 	}
 
@@ -716,7 +1758,66 @@ public class PieGraph extends View {
 	 * 是否在饼图园范围内
 	 */
 	private boolean inCircle(float x, float y) {
-		return Math.sqrt(Math.pow(x - getWidth() / 2, 2) + Math.pow(y - getHeight() / 2, 2)) < mPieRadius;
+		return FastMath.inCircle(x, y, mCenterX, mCenterY, mPieRadius);
+	}
+
+	/**
+	 * 保存的状态，快照可以是null（太大了或者是多层饼状图）
+	 */
+	static class SavedState extends BaseSavedState {
+
+		private float  mRotate;
+		private int    mSelectIndex = -1;
+		private byte[] mSnapshot;
+
+		SavedState(Parcelable superState) {
+			super(superState);
+		}
+
+		private SavedState(Parcel in) {
+			super(in);
+			mRotate = in.readFloat();
+			mSelectIndex = in.readInt();
+			mSnapshot = in.createByteArray();
+		}
+
+		@Override
+		public void writeToParcel(Parcel out, int flags) {
+			super.writeToParcel(out, flags);
+			out.writeFloat(mRotate);
+			out.writeInt(mSelectIndex);
+			out.writeByteArray(mSnapshot);
+		}
+
+		public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+			@Override
+			public SavedState createFromParcel(Parcel in) {
+				return new SavedState(in);
+			}
+
+			@Override
+			public SavedState[] newArray(int size) {
+				return new SavedState[size];
+			}
+		};
+	}
+
+	/**
+	 * 后台算好的数据，算好以后不会再改，回到主线程直接换上去
+	 */
+	private static final class PreparedData {
+
+		private final PieDataSet          mDataSet;
+		private final List<PieDataHolder> mHolders;
+		private final AngleIndex          mAngleIndex;
+		private final LabelTextBuffer     mLabelText;
+
+		PreparedData(PieDataSet dataSet, List<PieDataHolder> holders, AngleIndex angleIndex, LabelTextBuffer labelText) {
+			mDataSet = dataSet;
+			mHolders = holders;
+			mAngleIndex = angleIndex;
+			mLabelText = labelText;
+		}
 	}
 
 	/**
@@ -727,7 +1828,7 @@ public class PieGraph extends View {
 		/**
 		 * 具体的值
 		 */
-		private float mValue;
+		private double mValue;
 
 		/**
 		 * 比例
@@ -764,10 +1865,44 @@ public class PieGraph extends View {
 		 */
 		private int mPosition;
 
-		public PieDataHolder(int value, int color, String label) {
+		public PieDataHolder(long value, int color, String label) {
+			mValue = value;
+			mColor = color;
+			mMarker = label;
+		}
+
+		public PieDataHolder(double value, int color, String label) {
 			mValue = value;
 			mColor = color;
 			mMarker = label;
 		}
+
+		/**
+		 * 从按列存放的数据里面取出一块
+		 */
+		static PieDataHolder from(PieDataSet dataSet, int position) {
+			PieDataHolder holder = new PieDataHolder(dataSet.getValue(position), dataSet.getColor(position),
+													 dataSet.getLabel(position));
+			holder.readAngles(dataSet, position);
+			holder.mIsSelect = true;
+			holder.mPosition = position;
+			return holder;
+		}
+
+		/**
+		 * 从dataSet取第position块的比例和角度
+		 */
+		void readAngles(PieDataSet dataSet, int position) {
+			if (dataSet.isAnglesDirty()) {
+				// 数据刚改过，角度数组还没重新算，直接从前缀和里面取，O(log n)
+				mRatio = dataSet.getRatio(position);
+				mStartAngel = dataSet.getStartAngle(position);
+				mSweepAngel = dataSet.getSweepAngle(position);
+			} else {
+				mRatio = dataSet.getRatios()[position];
+				mStartAngel = dataSet.getStartAngles()[position];
+				mSweepAngel = dataSet.getSweepAngles()[position];
+			}
+		}
 	}
 }
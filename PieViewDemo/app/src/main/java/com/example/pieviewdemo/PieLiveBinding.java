@@ -0,0 +1,140 @@
+package com.example.pieviewdemo;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.example.piecore.PieDataSet;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 实时数据绑定
+ * 任何线程、任何频率都可以submit数据，一帧（Choreographer）之内只取最新的一份交给PieGraph重新算一次，
+ * 中间被新数据覆盖掉的算合并（coalesced），没有绑定的时候提交的算丢弃（dropped）
+ * 要在主线程创建
+ */
+public class PieLiveBinding implements Choreographer.FrameCallback {
+
+	private final PieGraph                    mPieGraph;
+	private final Choreographer               mChoreographer;
+	private final Handler                     mMainHandler;
+	/**
+	 * 等着下一帧用的最新数据
+	 */
+	private final AtomicReference<PieDataSet> mPending        = new AtomicReference<>();
+	/**
+	 * 是否已经注册了下一帧的回调
+	 */
+	private final AtomicBoolean               mFrameScheduled = new AtomicBoolean();
+	private volatile boolean                  mBound;
+
+	/**
+	 * 统计
+	 */
+	private final AtomicLong                  mSubmitted      = new AtomicLong();
+	private final AtomicLong                  mApplied        = new AtomicLong();
+	private final AtomicLong                  mCoalesced      = new AtomicLong();
+	private final AtomicLong                  mDropped        = new AtomicLong();
+
+	/**
+	 * 其他线程提交的时候，切到主线程再注册帧回调
+	 */
+	private final Runnable                    mScheduleFrame  = new Runnable() {
+		@Override
+		public void run() {
+			mChoreographer.postFrameCallback(PieLiveBinding.this);
+		}
+	};
+
+	public PieLiveBinding(PieGraph pieGraph) {
+		mPieGraph = pieGraph;
+		mChoreographer = Choreographer.getInstance();
+		mMainHandler = new Handler(Looper.getMainLooper());
+	}
+
+	/**
+	 * 开始接收数据
+	 */
+	public void bind() {
+		mBound = true;
+		if (mPending.get() != null) {
+			scheduleFrame();
+		}
+	}
+
+	/**
+	 * 停止接收数据，还没用上的那一份算丢弃
+	 */
+	public void unbind() {
+		mBound = false;
+		if (mPending.getAndSet(null) != null) {
+			mDropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * 提交一份新数据，任何线程都可以调用，提交以后不要再修改dataSet
+	 */
+	public void submit(PieDataSet dataSet) {
+		mSubmitted.incrementAndGet();
+		if (!mBound || dataSet == null) {
+			mDropped.incrementAndGet();
+			return;
+		}
+		if (mPending.getAndSet(dataSet) != null) {
+			// 上一份还没来得及用就被覆盖了
+			mCoalesced.incrementAndGet();
+		}
+		scheduleFrame();
+	}
+
+	private void scheduleFrame() {
+		if (!mFrameScheduled.compareAndSet(false, true)) {
+			return;
+		}
+		if (Looper.myLooper() == Looper.getMainLooper()) {
+			mChoreographer.postFrameCallback(this);
+		} else {
+			mMainHandler.post(mScheduleFrame);
+		}
+	}
+
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		mFrameScheduled.set(false);
+		PieDataSet dataSet = mPending.getAndSet(null);
+		if (dataSet == null) {
+			return;
+		}
+		if (!mBound) {
+			mDropped.incrementAndGet();
+			return;
+		}
+		// 一帧只重新算这一次
+		mPieGraph.setLivePieData(dataSet);
+		mApplied.incrementAndGet();
+		// 处理的过程中又来了新数据，排到下一帧
+		if (mPending.get() != null) {
+			scheduleFrame();
+		}
+	}
+
+	public long getSubmittedCount() {
+		return mSubmitted.get();
+	}
+
+	public long getAppliedCount() {
+		return mApplied.get();
+	}
+
+	public long getCoalescedCount() {
+		return mCoalesced.get();
+	}
+
+	public long getDroppedCount() {
+		return mDropped.get();
+	}
+}
@@ -0,0 +1,237 @@
+package com.example.pieviewdemo;
+
+import android.content.Context;
+import android.graphics.Paint;
+import android.text.TextPaint;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import com.example.piecore.LabelFormat;
+import com.example.piecore.LabelFormatter;
+import com.example.piecore.TextMeasurer;
+import com.example.piecore.TextWidthCache;
+
+/**
+ * 解析好的饼状图样式，给{@link PieDrawable}用，一个列表里面几百个饼状图共用一份
+ * dp、sp在build的时候换算一次，文字的高度也是量一次；画笔也是共用的，只在主线程画的时候设置颜色，其他的属性不会再改
+ */
+public final class PieStyle {
+
+	private static final int DEFAULT_PADDING_DP       = 2;
+	private static final int DEFAULT_TEXT_SIZE_SP     = 10;
+	private static final int DEFAULT_RADIUS_DP        = 80;
+	private static final int DEFAULT_SELECT_OFFSET_DP = 8;
+	private static final int DEFAULT_MARKER_LINE1_DP  = 14;
+	private static final int DEFAULT_MARKER_LINE2_DP  = 6;
+
+	private final float          mRadius;
+	private final float          mSelectOffset;
+	private final float          mMarkerLine1;
+	private final float          mMarkerLine2;
+	private final float          mPadding;
+	private final int            mTextColor;
+	private final boolean        mDrawLabels;
+	private final LabelFormatter mLabelFormatter;
+	private final float          mTextHeight;
+	private final float          mTextBottom;
+	/**
+	 * 共用的画笔，画的时候只设置颜色
+	 */
+	private final Paint          mPiePaint;
+	private final TextPaint      mTextPaint;
+	private final Paint          mLinePaint;
+	/**
+	 * 画缓存的位图用，只设置透明度和滤镜
+	 */
+	private final Paint          mBitmapPaint;
+	/**
+	 * 同一个样式文字大小和字体都一样，宽度缓存也共用
+	 */
+	private final TextWidthCache mTextWidths;
+	private final TextMeasurer   mTextMeasurer;
+
+	private PieStyle(Builder builder, DisplayMetrics metrics) {
+		mRadius = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, builder.mRadiusDp, metrics);
+		mSelectOffset = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, builder.mSelectOffsetDp, metrics);
+		mMarkerLine1 = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, builder.mMarkerLine1Dp, metrics);
+		mMarkerLine2 = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, builder.mMarkerLine2Dp, metrics);
+		mPadding = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_PADDING_DP, metrics);
+		mTextColor = builder.mTextColor;
+		mDrawLabels = builder.mDrawLabels;
+		mLabelFormatter = builder.mLabelFormatter != null ? builder.mLabelFormatter
+														  : LabelFormat.defaultFormatter(builder.mDrawRatio);
+
+		mPiePaint = new Paint();
+		mPiePaint.setFlags(Paint.ANTI_ALIAS_FLAG);
+		mPiePaint.setStyle(Paint.Style.FILL);
+		mLinePaint = new Paint();
+		mLinePaint.setFlags(Paint.ANTI_ALIAS_FLAG);
+		mLinePaint.setStyle(Paint.Style.STROKE);
+		mBitmapPaint = new Paint();
+		mTextPaint = new TextPaint();
+		mTextPaint.setFlags(Paint.ANTI_ALIAS_FLAG);
+		mTextPaint.setTextAlign(Paint.Align.LEFT);
+		mTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, builder.mTextSizeSp, metrics));
+		Paint.FontMetrics fontMetrics = mTextPaint.getFontMetrics();
+		mTextHeight = fontMetrics.descent - fontMetrics.ascent;
+		mTextBottom = fontMetrics.bottom;
+
+		mTextWidths = new TextWidthCache(512);
+		final TextMeasurer paintMeasurer = new TextMeasurer() {
+			@Override
+			public float measure(String text) {
+				return mTextPaint.measureText(text);
+			}
+		};
+		mTextMeasurer = new TextMeasurer() {
+			@Override
+			public float measure(String text) {
+				return mTextWidths.get(text, mTextPaint.getTextSize(), paintMeasurer);
+			}
+		};
+	}
+
+	public float getRadius() {
+		return mRadius;
+	}
+
+	public float getSelectOffset() {
+		return mSelectOffset;
+	}
+
+	public float getMarkerLine1() {
+		return mMarkerLine1;
+	}
+
+	public float getMarkerLine2() {
+		return mMarkerLine2;
+	}
+
+	public int getTextColor() {
+		return mTextColor;
+	}
+
+	public boolean isDrawLabels() {
+		return mDrawLabels;
+	}
+
+	public LabelFormatter getLabelFormatter() {
+		return mLabelFormatter;
+	}
+
+	public float getTextHeight() {
+		return mTextHeight;
+	}
+
+	public float getTextBottom() {
+		return mTextBottom;
+	}
+
+	/**
+	 * 和PieGraph的onMeasure一样：半径 + 选中多出来的 + 半径延长线 + 文字高度的一半 + padding，乘2；不画文字的时候只要饼状图
+	 */
+	public int getPreferredHeight() {
+		if (!mDrawLabels) {
+			return (int) Math.ceil((mRadius + mSelectOffset + mPadding) * 2);
+		}
+		return (int) ((mRadius + mSelectOffset + mMarkerLine1 + mTextHeight / 2 + mPadding) * 2);
+	}
+
+	Paint getPiePaint() {
+		return mPiePaint;
+	}
+
+	TextPaint getTextPaint() {
+		return mTextPaint;
+	}
+
+	Paint getLinePaint() {
+		return mLinePaint;
+	}
+
+	Paint getBitmapPaint() {
+		return mBitmapPaint;
+	}
+
+	TextMeasurer getTextMeasurer() {
+		return mTextMeasurer;
+	}
+
+	/**
+	 * 尺寸都是dp/sp，默认值和PieGraph一样
+	 */
+	public static final class Builder {
+
+		private final Context  mContext;
+		private float          mRadiusDp       = DEFAULT_RADIUS_DP;
+		private float          mSelectOffsetDp = DEFAULT_SELECT_OFFSET_DP;
+		private float          mTextSizeSp     = DEFAULT_TEXT_SIZE_SP;
+		private float          mMarkerLine1Dp  = DEFAULT_MARKER_LINE1_DP;
+		private float          mMarkerLine2Dp  = DEFAULT_MARKER_LINE2_DP;
+		private int            mTextColor      = 0xff000000;
+		private boolean        mDrawRatio;
+		private boolean        mDrawLabels     = true;
+		private LabelFormatter mLabelFormatter;
+
+		public Builder(Context context) {
+			mContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+		}
+
+		public Builder setRadiusDp(float radiusDp) {
+			mRadiusDp = radiusDp;
+			return this;
+		}
+
+		public Builder setSelectOffsetDp(float selectOffsetDp) {
+			mSelectOffsetDp = selectOffsetDp;
+			return this;
+		}
+
+		public Builder setTextSizeSp(float textSizeSp) {
+			mTextSizeSp = textSizeSp;
+			return this;
+		}
+
+		public Builder setMarkerLine1Dp(float markerLine1Dp) {
+			mMarkerLine1Dp = markerLine1Dp;
+			return this;
+		}
+
+		public Builder setMarkerLine2Dp(float markerLine2Dp) {
+			mMarkerLine2Dp = markerLine2Dp;
+			return this;
+		}
+
+		public Builder setTextColor(int textColor) {
+			mTextColor = textColor;
+			return this;
+		}
+
+		/**
+		 * true的时候只画百分比
+		 */
+		public Builder setDrawRatio(boolean drawRatio) {
+			mDrawRatio = drawRatio;
+			return this;
+		}
+
+		/**
+		 * 小图一般不画文字标记，false的时候只画饼状图
+		 */
+		public Builder setDrawLabels(boolean drawLabels) {
+			mDrawLabels = drawLabels;
+			return this;
+		}
+
+		/**
+		 * 自定义的文字格式，null的时候按drawRatio用默认的
+		 */
+		public Builder setLabelFormatter(LabelFormatter labelFormatter) {
+			mLabelFormatter = labelFormatter;
+			return this;
+		}
+
+		public PieStyle build() {
+			return new PieStyle(this, mContext.getResources().getDisplayMetrics());
+		}
+	}
+}
@@ -24,11 +24,12 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.PointF;
-import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.View;
 
+import com.example.piecore.PieNormalizer;
+
 import java.util.ArrayList;
 
 public class PieView extends View {
@@ -42,6 +43,13 @@ public class PieView extends View {
     private int mWidth, mHeight;
     // 画笔
     private Paint mPaint = new Paint();
+    // 饼状图半径，跟着控件大小变
+    private float mRadius;
+    // 每一块的开始角度和扫过的角度（不含mStartAngle）
+    private float[] mStartAngles = new float[0];
+    private float[] mSweepAngles = new float[0];
+    // 每一块的路径缓存，只有角度或者半径变了的那几块才重建
+    private WedgePathCache mWedgePaths = new WedgePathCache();
 
 
     public PieView(Context context) {
@@ -59,6 +67,13 @@ public class PieView extends View {
         super.onSizeChanged(w, h, oldw, oldh);
         mWidth = w;
         mHeight = h;
+        mRadius = (float) (Math.min(mWidth, mHeight) / 2 * 0.8);    // 饼状图半径
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mWedgePaths.release();                                      // 路径缓存跟着控件释放
     }
 
     @Override
@@ -66,16 +81,14 @@ public class PieView extends View {
         super.onDraw(canvas);
         if (null == mData)
             return;
-        float currentStartAngle = mStartAngle;                      // 当前起始角度
+        int count = mData.size();
+        mWedgePaths.update(mStartAngles, mSweepAngles, count, mRadius);   // 只重建变了的路径
         canvas.translate(mWidth / 2, mHeight / 2);                  // 将画布坐标原点移动到中心位置
-        float r = (float) (Math.min(mWidth, mHeight) / 2 * 0.8);    // 饼状图半径
-        RectF rect = new RectF(-r, -r, r, r);                       // 饼状图绘制区域
+        canvas.rotate(mStartAngle);                                 // 起始角度直接旋转画布
 
-        for (int i = 0; i < mData.size(); i++) {
-            PieData pie = mData.get(i);
-            mPaint.setColor(pie.getColor());
-            canvas.drawArc(rect, currentStartAngle, pie.getAngle(), true, mPaint);
-            currentStartAngle += pie.getAngle();
+        for (int i = 0; i < count; i++) {
+            mPaint.setColor(mData.get(i).getColor());
+            canvas.drawPath(mWedgePaths.getPath(i), mPaint);
         }
 
     }
@@ -98,26 +111,30 @@ public class PieView extends View {
         if (null == mData || mData.size() == 0)   // 数据有问题 直接返回
             return;
 
-        float sumValue = 0;
-        for (int i = 0; i < mData.size(); i++) {
+        int count = mData.size();
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
             PieData pie = mData.get(i);
 
-            sumValue += pie.getValue();       //计算数值和
+            values[i] = pie.getValue();
 
             int j = i % mColors.length;       //设置颜色
             pie.setColor(mColors[j]);
         }
 
-        float sumAngle = 0;
-        for (int i = 0; i < mData.size(); i++) {
+        float[] percentages = new float[count];
+        float[] angles = new float[count];
+        PieNormalizer.normalizeSimple(values, count, percentages, angles);   // 百分比和对应的角度
+        mStartAngles = new float[count];
+        mSweepAngles = angles;
+        float currentStartAngle = 0;
+        for (int i = 0; i < count; i++) {
             PieData pie = mData.get(i);
 
-            float percentage = pie.getValue() / sumValue;   // 百分比
-            float angle = percentage * 360;                 // 对应的角度
-
-            pie.setPercentage(percentage);                  // 记录百分比
-            pie.setAngle(angle);                            // 记录角度大小
-            sumAngle += angle;
+            pie.setPercentage(percentages[i]);              // 记录百分比
+            pie.setAngle(angles[i]);                        // 记录角度大小
+            mStartAngles[i] = currentStartAngle;
+            currentStartAngle += angles[i];
 
             Log.i("angle", "" + pie.getAngle());
         }
@@ -0,0 +1,69 @@
+package com.example.pieviewdemo;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import com.example.piecore.WedgeGeometry;
+
+/**
+ * 每一块饼的路径缓存，圆心在原点、旋转0度
+ * 画的时候把画布平移到圆心再旋转，选中的那块再沿着{@link WedgeGeometry}里面的方向平移，每一帧不用重新算路径也不用三角函数；
+ * 只有角度或者半径变了的那几块才重建路径
+ */
+final class WedgePathCache {
+
+	private final WedgeGeometry mGeometry = new WedgeGeometry();
+	private final RectF         mOval     = new RectF();
+	private Path[]              mPaths    = new Path[0];
+
+	/**
+	 * 只重建变了的那几块的路径
+	 */
+	void update(float[] startAngles, float[] sweepAngles, int count, float radius) {
+		if (mGeometry.update(startAngles, sweepAngles, count, radius) == 0) {
+			return;
+		}
+		if (mPaths.length < count) {
+			Path[] paths = new Path[Math.max(count, mPaths.length * 2)];
+			System.arraycopy(mPaths, 0, paths, 0, mPaths.length);
+			mPaths = paths;
+		}
+		mOval.set(-radius, -radius, radius, radius);
+		for (int index = 0; index < count; index++) {
+			if (!mGeometry.isDirty(index)) {
+				continue;
+			}
+			Path path = mPaths[index];
+			if (path == null) {
+				path = new Path();
+				mPaths[index] = path;
+			}
+			path.rewind();
+			if (sweepAngles[index] >= 360) {
+				// 只有一块的时候是整个圆
+				path.addOval(mOval, Path.Direction.CW);
+			} else {
+				path.moveTo(0, 0);
+				path.arcTo(mOval, startAngles[index], sweepAngles[index], false);
+				path.close();
+			}
+			mGeometry.clearDirty(index);
+		}
+	}
+
+	Path getPath(int index) {
+		return mPaths[index];
+	}
+
+	WedgeGeometry getGeometry() {
+		return mGeometry;
+	}
+
+	/**
+	 * 控件不用了的时候释放掉所有路径
+	 */
+	void release() {
+		mPaths = new Path[0];
+		mGeometry.release();
+	}
+}
@@ -0,0 +1,72 @@
+package com.example.piebench;
+
+import com.example.piecore.LabelFormat;
+import com.example.piecore.LabelTextBuffer;
+import com.example.piecore.PieDataSet;
+
+import java.util.Random;
+
+/**
+ * 基准测试用的数据，固定种子，每次跑的数据都一样
+ */
+final class BenchmarkData {
+
+	private static final long SEED = 20200512L;
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * 每一块的值，大小差得比较多（有很多很小的块）
+	 */
+	static double[] values(int count) {
+		Random random = new Random(SEED);
+		double[] values = new double[count];
+		for (int index = 0; index < count; index++) {
+			values[index] = random.nextInt(10) == 0 ? 1 + random.nextInt(1000) : 1 + random.nextInt(10);
+		}
+		return values;
+	}
+
+	static PieDataSet dataSet(int count) {
+		double[] values = values(count);
+		PieDataSet dataSet = new PieDataSet(count);
+		int label = dataSet.addLabel("label");
+		for (int index = 0; index < count; index++) {
+			dataSet.add(values[index], 0xff000000 | index, label);
+		}
+		dataSet.computeAngles();
+		return dataSet;
+	}
+
+	/**
+	 * 每一块的文字，宽度按一个字符7像素估算
+	 */
+	static LabelTextBuffer labels(PieDataSet dataSet) {
+		LabelTextBuffer texts = new LabelTextBuffer();
+		int count = dataSet.getCount();
+		int[] percents = dataSet.getPercents();
+		texts.reset(count);
+		for (int index = 0; index < count; index++) {
+			String text = LabelFormat.format("label", percents[index], false);
+			texts.append(text);
+			texts.setWidth(index, text.length() * 7);
+		}
+		return texts;
+	}
+
+	/**
+	 * 点击的点，在半径200的圆里面均匀分布
+	 */
+	static float[] touchPoints(int count) {
+		Random random = new Random(SEED);
+		float[] points = new float[count * 2];
+		for (int index = 0; index < count; index++) {
+			double angle = random.nextDouble() * Math.PI * 2;
+			double radius = Math.sqrt(random.nextDouble()) * 200;
+			points[index * 2] = (float) (Math.cos(angle) * radius);
+			points[index * 2 + 1] = (float) (Math.sin(angle) * radius);
+		}
+		return points;
+	}
+}
@@ -0,0 +1,86 @@
+package com.example.piebench;
+
+import com.example.piecore.AngleIndex;
+import com.example.piecore.FastMath;
+import com.example.piecore.PieDataSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 点击：点映射到角度，再按角度找是哪一块
+ * legacy开头的是原来的做法（按象限的atan、线性查找），用来和现在的做对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HitTestBenchmark {
+
+	private static final int   TOUCH_COUNT = 1024;
+	private static final float ROTATE      = 37.5f;
+
+	@Param({"10", "1000", "100000", "1000000"})
+	public int count;
+
+	private PieDataSet mDataSet;
+	private AngleIndex mAngleIndex;
+	private float[]    mTouchPoints;
+	private int        mTouch;
+
+	@Setup
+	public void setup() {
+		mDataSet = BenchmarkData.dataSet(count);
+		mAngleIndex = new AngleIndex();
+		mAngleIndex.set(mDataSet.getStartAngles(), mDataSet.getSweepAngles(), count);
+		mAngleIndex.setRotate(ROTATE);
+		mTouchPoints = BenchmarkData.touchPoints(TOUCH_COUNT);
+	}
+
+	private int nextTouch() {
+		mTouch = (mTouch + 1) & (TOUCH_COUNT - 1);
+		return mTouch * 2;
+	}
+
+	@Benchmark
+	public int legacyHitTest() {
+		int touch = nextTouch();
+		int angle = LegacyHitTester.angleOf(mTouchPoints[touch], mTouchPoints[touch + 1], 0, 0);
+		return LegacyHitTester.indexOfAngle(angle, mDataSet.getStartAngles(), mDataSet.getSweepAngles(), count, ROTATE);
+	}
+
+	@Benchmark
+	public int angleIndexHitTest() {
+		int touch = nextTouch();
+		return mAngleIndex.indexOf(FastMath.atan2Degrees(mTouchPoints[touch + 1], mTouchPoints[touch]));
+	}
+
+	/**
+	 * 数据刚增量改过、角度还没重新算的时候走前缀和
+	 */
+	@Benchmark
+	public int prefixSumHitTest() {
+		int touch = nextTouch();
+		float angle = FastMath.atan2Degrees(mTouchPoints[touch + 1], mTouchPoints[touch]);
+		return mDataSet.indexOfAngle(mAngleIndex.toLocalAngle(angle));
+	}
+
+	@Benchmark
+	public int legacyAngleOf() {
+		int touch = nextTouch();
+		return LegacyHitTester.angleOf(mTouchPoints[touch], mTouchPoints[touch + 1], 0, 0);
+	}
+
+	@Benchmark
+	public float fastAtan2() {
+		int touch = nextTouch();
+		return FastMath.atan2Degrees(mTouchPoints[touch + 1], mTouchPoints[touch]);
+	}
+}
@@ -0,0 +1,63 @@
+package com.example.piebench;
+
+import com.example.piecore.LabelLayout;
+import com.example.piecore.LabelTextBuffer;
+import com.example.piecore.PieDataSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文字标记的位置和重叠处理，每次都是整个重新算（相当于每一帧都在旋转）
+ * legacy开头的是原来的做法（每一块拼字符串、只和前一个和第一个比较重叠），和placement没有关系
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LabelLayoutBenchmark {
+
+	@Param({"10", "1000", "100000", "1000000"})
+	public int count;
+
+	@Param({"0", "1"})
+	public int placement;
+
+	private PieDataSet      mDataSet;
+	private LabelTextBuffer mTexts;
+	private LabelLayout     mLayout;
+	private float[]         mLines;
+	private float           mRotate;
+
+	@Setup
+	public void setup() {
+		mDataSet = BenchmarkData.dataSet(count);
+		mTexts = BenchmarkData.labels(mDataSet);
+		mLayout = new LabelLayout();
+		mLayout.ensureCapacity(count);
+		// 控件大小按1080 x 900算
+		mLayout.setPlacement(placement, 0, 900);
+		mLines = new float[count * 4];
+	}
+
+	@Benchmark
+	public int layout() {
+		mRotate += 0.7f;
+		return mLayout.layout(540, 450, mDataSet.getStartAngles(), mDataSet.getSweepAngles(), mTexts, count, mRotate, 3, 240,
+							  24, 42, 18, 36);
+	}
+
+	@Benchmark
+	public int legacyLayout() {
+		mRotate += 0.7f;
+		return LegacyPieGraph.drawText(540, 450, mDataSet.getRatios(), mDataSet.getStartAngles(), mDataSet.getSweepAngles(),
+									   "label", false, count, mRotate, 240, 24, 42, 18, mLines);
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.piebench;
+
+/**
+ * 原来的点击计算（按象限的atan、线性查找、Math.pow算距离），只留在这里当基准
+ * 坐标系和Android的一样：x向右，y向下，角度顺时针增加，0度在3点钟方向
+ */
+final class LegacyHitTester {
+
+	private LegacyHitTester() {
+	}
+
+	/**
+	 * 点击的点映射到圆上的角度
+	 *
+	 * @param centerX 圆心x
+	 * @param centerY 圆心y
+	 */
+	static int angleOf(float x, float y, float centerX, float centerY) {
+		int angle = 0;
+		// 第一象限
+		if (x >= centerX && y >= centerY) {
+			angle = (int) (Math.atan((y - centerY) * 1.0f / (x - centerX)) * 180 / Math.PI);
+		}
+		// 第二象限
+		if (x <= centerX && y >= centerY) {
+			angle = (int) (Math.atan((centerX - x) / (y - centerY)) * 180 / Math.PI + 90);
+		}
+		// 第三象限
+		if (x <= centerX && y <= centerY) {
+			angle = (int) (Math.atan((centerY - y) / (centerX - x)) * 180 / Math.PI + 180);
+		}
+		// 第四象限
+		if (x >= centerX && y <= centerY) {
+			angle = (int) (Math.atan((x - centerX) / (centerY - y)) * 180 / Math.PI + 270);
+		}
+		return angle;
+	}
+
+	/**
+	 * 通过角度去找是哪一块
+	 *
+	 * @param angle       点击的角度[0, 360)
+	 * @param startAngles 每一块的开始角度
+	 * @param sweepAngles 每一块扫过的角度
+	 * @param count       有效的个数
+	 * @param rotate      旋转的角度
+	 * @return 下标，没找到返回-1
+	 */
+	static int indexOfAngle(int angle, float[] startAngles, float[] sweepAngles, int count, float rotate) {
+		for (int index = 0; index < count; index++) {
+			// 这里我们拿到真正的开始角度
+			float realStartAngel = (startAngles[index] + rotate) % 360;
+			if (realStartAngel < 0) {
+				realStartAngel += 360;
+			}
+			if (realStartAngel + sweepAngles[index] > 360) {
+				if (angle >= realStartAngel) {
+					return index;
+				} else {
+					if (angle < realStartAngel + sweepAngles[index] - 360) {
+						return index;
+					}
+				}
+			} else {
+				if (angle >= realStartAngel && angle < realStartAngel + sweepAngles[index]) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 是否在圆的范围内
+	 */
+	static boolean inCircle(float x, float y, float centerX, float centerY, float radius) {
+		return Math.sqrt(Math.pow(x - centerX, 2) + Math.pow(y - centerY, 2)) < radius;
+	}
+}
@@ -0,0 +1,154 @@
+package com.example.piebench;
+
+import java.text.DecimalFormat;
+import java.util.Locale;
+
+/**
+ * 原来PieGraph里面的计算（float累加、DecimalFormat修正最大的比例、每一块拼字符串、只和前一个和第一个比较重叠），只留在这里当基准
+ * Android的Path、Rect和Paint.measureText换成了int和按字符数估算的宽度，其他的照原样
+ */
+final class LegacyPieGraph {
+
+	private LegacyPieGraph() {
+	}
+
+	/**
+	 * 原来的setPieData：算比例、开始角度、扫过的角度，再让最大的比例用1减掉其他的
+	 */
+	static void setPieData(float[] values, int count, float[] ratios, float[] startAngles, float[] sweepAngles,
+						   DecimalFormat decimalFormat) {
+		float sum = 0;
+		for (int index = 0; index < count; index++) {
+			sum += values[index];
+		}
+		float preSum = 0;
+		for (int index = 0; index < count; index++) {
+			ratios[index] = values[index] / sum;
+			startAngles[index] = preSum / sum * 360f;
+			preSum += values[index];
+			if (index == count - 1) {
+				sweepAngles[index] = 360 - startAngles[index];
+			} else {
+				sweepAngles[index] = ratios[index] * 360;
+			}
+		}
+		int maxRatioPosition = 0;
+		float maxRatioValue = 0;
+		for (int index = 0; index < count; index++) {
+			if (maxRatioValue < ratios[index]) {
+				maxRatioValue = ratios[index];
+				maxRatioPosition = index;
+			}
+		}
+		float sumWithOutMax = 0;
+		for (int index = 0; index < count; index++) {
+			if (index != maxRatioPosition) {
+				sumWithOutMax += ratios[index];
+			}
+		}
+		if (count > 0) {
+			ratios[maxRatioPosition] = 1 - Float.parseFloat(decimalFormat.format(sumWithOutMax));
+		}
+	}
+
+	/**
+	 * 原来的drawText去掉画的部分：每一块拼文字、用Math.cos/Math.sin算线和文字的位置，
+	 * 只和上一个画出来的比较重叠，最后一个再和第一个比较
+	 *
+	 * @param outLines 输出：每一块4个数，线的起点和文字那一头（代替原来每一块new的Path）
+	 * @return 能画出来的个数
+	 */
+	static int drawText(float centerX, float centerY, float[] ratios, float[] startAngles, float[] sweepAngles,
+						String marker, boolean isDrawRatio, int count, float rotate, float pieRadius, float markerLine1,
+						float markerLine2, float textHeight, float[] outLines) {
+		int visibleCount = 0;
+		int preLeft = 0, preTop = 0, preRight = 0, preBottom = 0;
+		int firstLeft = 0, firstTop = 0, firstRight = 0, firstBottom = 0;
+		for (int index = 0; index < count; index++) {
+			if (sweepAngles[index] == 0) {
+				continue;
+			}
+			String textMarker = String.valueOf(ratios[index] * 100);
+			if (textMarker.length() >= 5) {
+				textMarker = textMarker.substring(0, 5);
+			}
+			if (!isDrawRatio) {
+				textMarker = String.format(Locale.getDefault(), "%s(%s)", marker, textMarker + "%");
+			}
+			float textWidth = textMarker.length() * 7;
+			float middle = (startAngles[index] + sweepAngles[index] / 2 + rotate) % 360;
+			if (middle < 0) {
+				middle += 360;
+			}
+			float startX = (float) (centerX + pieRadius * Math.cos(Math.toRadians(middle)));
+			float startY = (float) (centerY + pieRadius * Math.sin(Math.toRadians(middle)));
+			float x = (float) (centerX + (markerLine1 + pieRadius) * Math.cos(Math.toRadians(middle)));
+			float y = (float) (centerY + (markerLine1 + pieRadius) * Math.sin(Math.toRadians(middle)));
+			float landLineX;
+			if (270f > middle && middle > 90f) {
+				landLineX = x - markerLine2;
+			} else {
+				landLineX = x + markerLine2;
+			}
+			int top = (int) (y - textHeight / 2);
+			int left;
+			if (270f > middle && middle > 90f) {
+				left = (int) (landLineX - textWidth);
+			} else {
+				left = (int) landLineX;
+			}
+			int bottom = (int) (top + textHeight);
+			int right = (int) (left + textWidth);
+			if (index == 0) {
+				firstLeft = left;
+				firstTop = top;
+				firstRight = right;
+				firstBottom = bottom;
+			}
+			outLines[index * 4] = startX;
+			outLines[index * 4 + 1] = startY;
+			outLines[index * 4 + 2] = landLineX;
+			outLines[index * 4 + 3] = y;
+			boolean draw;
+			if (index == count - 1 && count > 1) {
+				draw = isEmpty(preLeft, preTop, preRight, preBottom)
+					   || (!isCollisionWithRect(preLeft, preTop, preRight - preLeft, preBottom - preTop, left, top,
+												right - left, bottom - top)
+						   && !isCollisionWithRect(firstLeft, firstTop, firstRight - firstLeft, firstBottom - firstTop,
+												   left, top, right - left, bottom - top));
+			} else {
+				draw = isEmpty(preLeft, preTop, preRight, preBottom)
+					   || !isCollisionWithRect(preLeft, preTop, preRight - preLeft, preBottom - preTop, left, top,
+											   right - left, bottom - top);
+			}
+			if (draw) {
+				preLeft = left;
+				preTop = top;
+				preRight = right;
+				preBottom = bottom;
+				visibleCount++;
+			}
+		}
+		return visibleCount;
+	}
+
+	private static boolean isEmpty(int left, int top, int right, int bottom) {
+		return left >= right || top >= bottom;
+	}
+
+	/**
+	 * 原来判断两个矩形是否有重叠的部分
+	 */
+	private static boolean isCollisionWithRect(int x1, int y1, int w1, int h1, int x2, int y2, int w2, int h2) {
+		if (x1 >= x2 && x1 >= x2 + w2) {
+			return false;
+		} else if (x1 <= x2 && x1 + w1 <= x2) {
+			return false;
+		} else if (y1 >= y2 && y1 >= y2 + h2) {
+			return false;
+		} else if (y1 <= y2 && y1 + h1 <= y2) {
+			return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,107 @@
+package com.example.piebench;
+
+import com.example.piecore.PieDataSet;
+import com.example.piecore.PieNormalizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.DecimalFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 设置数据时候的归一化：比例、开始角度、扫过的角度
+ * legacy开头的是原来的做法（float累加、DecimalFormat修正最大的比例），用来和现在的做对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NormalizeBenchmark {
+
+	@Param({"10", "1000", "100000", "1000000"})
+	public int count;
+
+	private double[]      mValues;
+	private float[]       mFloatValues;
+	private DecimalFormat mDecimalFormat;
+	private float[]       mRatios;
+	private int[]         mPercents;
+	private long[]        mPercentKeys;
+	private float[]       mStartAngles;
+	private float[]       mSweepAngles;
+	private PieDataSet    mDataSet;
+
+	@Setup
+	public void setup() {
+		mValues = BenchmarkData.values(count);
+		mFloatValues = new float[count];
+		for (int index = 0; index < count; index++) {
+			mFloatValues[index] = (float) mValues[index];
+		}
+		mDecimalFormat = new DecimalFormat("0.00");
+		mRatios = new float[count];
+		mPercents = new int[count];
+		mPercentKeys = new long[count];
+		mStartAngles = new float[count];
+		mSweepAngles = new float[count];
+		mDataSet = BenchmarkData.dataSet(count);
+	}
+
+	/**
+	 * PieGraph.setPieData一样的归一化
+	 */
+	@Benchmark
+	public float[] pieGraphNormalize() {
+		PieNormalizer.normalize(mValues, count, mRatios, mStartAngles, mSweepAngles);
+		return mSweepAngles;
+	}
+
+	/**
+	 * 原来PieGraph.setPieData的归一化
+	 */
+	@Benchmark
+	public float[] legacySetPieData() {
+		LegacyPieGraph.setPieData(mFloatValues, count, mRatios, mStartAngles, mSweepAngles, mDecimalFormat);
+		return mRatios;
+	}
+
+	/**
+	 * 最大余数法算百分比，保证加起来是100.00%
+	 */
+	@Benchmark
+	public int[] percentages() {
+		PieNormalizer.percentages(mValues, count, mPercents, mPercentKeys);
+		return mPercents;
+	}
+
+	/**
+	 * 按列存放的数据算角度和百分比（前缀和是改值的时候就更新好的，这里不重建）
+	 */
+	@Benchmark
+	public float[] dataSetComputeAngles() {
+		mDataSet.setValue(0, mDataSet.getValue(0));
+		mDataSet.computeAngles();
+		return mDataSet.getSweepAngles();
+	}
+
+	/**
+	 * PieView.initData一样的计算：归一化，再累加出每一块的开始角度（PieView本身是Android的控件，这里只测计算部分）
+	 */
+	@Benchmark
+	public void pieViewInitData(Blackhole blackhole) {
+		PieNormalizer.normalizeSimple(mValues, count, mRatios, mSweepAngles);
+		float currentStartAngle = 0;
+		for (int index = 0; index < count; index++) {
+			mStartAngles[index] = currentStartAngle;
+			currentStartAngle += mSweepAngles[index];
+		}
+		blackhole.consume(mStartAngles);
+	}
+}
@@ -0,0 +1,93 @@
+package com.example.piecore;
+
+/**
+ * 按角度找是哪一块的索引
+ * 保存每一块结束角度的前缀和（单调递增），找的时候二分查找，O(log n)，直接得到下标
+ */
+public final class AngleIndex {
+
+	/**
+	 * 每一块结束的角度，mEndAngles[i] = 前i+1块扫过的角度之和
+	 */
+	private float[] mEndAngles = new float[0];
+	private int     mCount;
+	/**
+	 * 旋转的角度，已经转换到[0, 360)
+	 */
+	private float   mRotate;
+
+	/**
+	 * 数据变化的时候重新建索引
+	 *
+	 * @param startAngles 每一块的开始角度（从0开始连续排列）
+	 * @param sweepAngles 每一块扫过的角度
+	 * @param count       有效的个数
+	 */
+	public void set(float[] startAngles, float[] sweepAngles, int count) {
+		if (mEndAngles.length < count) {
+			mEndAngles = new float[count];
+		}
+		float preEnd = 0;
+		for (int index = 0; index < count; index++) {
+			// 保证单调，避免精度问题导致二分出错
+			float end = Math.max(preEnd, startAngles[index] + sweepAngles[index]);
+			mEndAngles[index] = end;
+			preEnd = end;
+		}
+		mCount = count;
+	}
+
+	/**
+	 * 旋转变化的时候调用
+	 */
+	public void setRotate(float rotate) {
+		float value = rotate % 360;
+		if (value < 0) {
+			value += 360;
+		}
+		mRotate = value;
+	}
+
+	/**
+	 * 通过屏幕上的角度找到是哪一块
+	 *
+	 * @param angle 点击的角度[0, 360)
+	 * @return 下标，没找到返回-1
+	 */
+	public int indexOf(float angle) {
+		if (mCount <= 0) {
+			return -1;
+		}
+		float local = toLocalAngle(angle);
+		// 找第一个结束角度大于local的
+		int low = 0;
+		int high = mCount - 1;
+		if (local >= mEndAngles[high]) {
+			return -1;
+		}
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (mEndAngles[mid] > local) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * 屏幕上的角度转换到没有旋转的时候的角度[0, 360)
+	 */
+	public float toLocalAngle(float angle) {
+		float local = (angle - mRotate) % 360;
+		if (local < 0) {
+			local += 360;
+		}
+		return local;
+	}
+
+	public int getCount() {
+		return mCount;
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.piecore;
+
+/**
+ * 饼状图几何计算用的快速数学函数，PieGraph、PieView和核心的几何类共用
+ * 坐标系和Android的一样：x向右，y向下，角度顺时针增加，0度在3点钟方向
+ * <p>
+ * 误差：
+ * {@link #atan2Degrees}最大误差小于0.001度（多项式本身1e-5弧度），点击的时候不按整数度截断，很小的块也能点中；
+ * {@link #sinDegrees}、{@link #cosDegrees}用4096格的表线性插值，最大误差小于5e-7（插值误差(2π/4096)²/8，加上float的舍入）
+ */
+public final class FastMath {
+
+	private static final int     SIN_TABLE_SIZE  = 4096;
+	private static final int     SIN_TABLE_MASK  = SIN_TABLE_SIZE - 1;
+	private static final double  DEGREES_TO_STEP = SIN_TABLE_SIZE / 360.0;
+	/**
+	 * 多出来一格，插值的时候不用回绕
+	 */
+	private static final float[] SIN_TABLE       = new float[SIN_TABLE_SIZE + 1];
+
+	static {
+		for (int index = 0; index <= SIN_TABLE_SIZE; index++) {
+			SIN_TABLE[index] = (float) Math.sin(2 * Math.PI * index / SIN_TABLE_SIZE);
+		}
+	}
+
+	private FastMath() {
+	}
+
+	/**
+	 * 点(x, y)相对圆心的角度，[0, 360)，(0, 0)的时候结果没有意义
+	 * 没有四个象限的分支：先在[0, 1]上用多项式算atan(min / max)，再用符号按比例折到对应的象限
+	 */
+	public static float atan2Degrees(float y, float x) {
+		float absX = Math.abs(x);
+		float absY = Math.abs(y);
+		// 加一个很小的数，原点的时候不用判断除0
+		float z = Math.min(absX, absY) / (Math.max(absX, absY) + 1e-30f);
+		float z2 = z * z;
+		// Abramowitz & Stegun 4.4.49，[0, 1]上误差小于1e-5弧度
+		float angle = (float) Math.toDegrees(
+				z * (0.9998660f + z2 * (-0.3302995f + z2 * (0.1801410f + z2 * (-0.0851330f + z2 * 0.0208351f)))));
+		// |y| > |x|的时候是 90 - angle（相等的时候两个一样，系数0.5也没关系）
+		float steep = (Math.signum(absY - absX) + 1) * 0.5f;
+		angle += steep * (90 - 2 * angle);
+		// x < 0 的时候是 180 - angle
+		float left = (1 - Math.signum(x)) * 0.5f;
+		angle += left * (180 - 2 * angle);
+		// y < 0 的时候是 360 - angle
+		angle = Math.copySign(angle, y);
+		return angle - 360 * (float) Math.floor(angle / 360);
+	}
+
+	/**
+	 * 查表的sin，参数是角度
+	 */
+	public static float sinDegrees(float degrees) {
+		// 用double算格子，角度大的时候也不丢精度
+		return sinOfStep(degrees * DEGREES_TO_STEP);
+	}
+
+	/**
+	 * 查表的cos，参数是角度
+	 */
+	public static float cosDegrees(float degrees) {
+		// cos(x) = sin(x + 90)，在格子上加，不在float的角度上加
+		return sinOfStep(degrees * DEGREES_TO_STEP + SIN_TABLE_SIZE / 4);
+	}
+
+	private static float sinOfStep(double step) {
+		int index = (int) Math.floor(step);
+		float fraction = (float) (step - index);
+		index &= SIN_TABLE_MASK;
+		return SIN_TABLE[index] + (SIN_TABLE[index + 1] - SIN_TABLE[index]) * fraction;
+	}
+
+	/**
+	 * 两点之间距离的平方，比较远近的时候不用开方
+	 */
+	public static float distanceSquare(float x, float y, float centerX, float centerY) {
+		float dx = x - centerX;
+		float dy = y - centerY;
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * 是否在圆的范围内（比较距离的平方）
+	 */
+	public static boolean inCircle(float x, float y, float centerX, float centerY, float radius) {
+		return distanceSquare(x, y, centerX, centerY) < radius * radius;
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.piecore;
+
+/**
+ * 文字标记的格式，PieGraph和离线渲染用同一套规则
+ * 百分比是整数（万分之一）直接拼出来的，不经过float转字符串，固定两位小数，和Locale没关系
+ */
+public final class LabelFormat {
+
+	/**
+	 * 文字(百分比%)，PieGraph默认的格式
+	 */
+	public static final LabelFormatter LABEL_AND_PERCENT = new LabelFormatter() {
+		@Override
+		public CharSequence format(PieDataSet dataSet, int index) {
+			return LabelFormat.format(dataSet.getLabel(index), dataSet.getPercents()[index], false);
+		}
+	};
+
+	/**
+	 * 只有百分比的数字（pie_show_radio是true的时候）
+	 */
+	public static final LabelFormatter PERCENT_ONLY = new LabelFormatter() {
+		@Override
+		public CharSequence format(PieDataSet dataSet, int index) {
+			return LabelFormat.format(dataSet.getLabel(index), dataSet.getPercents()[index], true);
+		}
+	};
+
+	private LabelFormat() {
+	}
+
+	/**
+	 * 没有自定义格式的时候用的默认格式
+	 */
+	public static LabelFormatter defaultFormatter(boolean isDrawRatio) {
+		return isDrawRatio ? PERCENT_ONLY : LABEL_AND_PERCENT;
+	}
+
+	/**
+	 * 一块的文字
+	 *
+	 * @param label       这一块的文字
+	 * @param percent     百分比（万分之一），{@link PieDataSet#getPercents()}
+	 * @param isDrawRatio true的时候只有百分比的数字，false的时候是 文字(百分比%)
+	 */
+	public static String format(String label, int percent, boolean isDrawRatio) {
+		StringBuilder builder = new StringBuilder(isDrawRatio ? 6 : 16);
+		if (isDrawRatio) {
+			appendPercent(builder, percent);
+		} else {
+			builder.append(label).append('(');
+			appendPercent(builder, percent).append("%)");
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * 1234拼成12.34
+	 */
+	public static StringBuilder appendPercent(StringBuilder builder, int percent) {
+		builder.append(percent / 100).append('.');
+		int fraction = percent % 100;
+		if (fraction < 10) {
+			builder.append('0');
+		}
+		return builder.append(fraction);
+	}
+}
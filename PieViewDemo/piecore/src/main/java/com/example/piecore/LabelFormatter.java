@@ -0,0 +1,15 @@
+package com.example.piecore;
+
+/**
+ * 文字标记的格式，可以自己实现
+ * 结果会按块缓存：一块的值、文字、百分比都没变的时候不会再调用，所以结果只能和这三个有关系
+ * 默认的实现见{@link LabelFormat#LABEL_AND_PERCENT}、{@link LabelFormat#PERCENT_ONLY}
+ */
+public interface LabelFormatter {
+
+	/**
+	 * @param dataSet 数据，角度和百分比已经算好了
+	 * @param index   第几块
+	 */
+	CharSequence format(PieDataSet dataSet, int index);
+}
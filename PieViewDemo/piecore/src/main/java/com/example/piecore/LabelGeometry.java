@@ -0,0 +1,96 @@
+package com.example.piecore;
+
+/**
+ * 一块饼对应的文字标记的几何信息
+ * 先从圆的边缘延着半径拉出一条线（markerLine1），再水平拉出一条线（markerLine2），文字画在水平线的末端
+ */
+public final class LabelGeometry {
+
+	/**
+	 * 圆边缘上的点
+	 */
+	public float   startX;
+	public float   startY;
+	/**
+	 * 延着半径拉出来的线的末端，也就是水平线开始的地方
+	 */
+	public float   elbowX;
+	public float   elbowY;
+	/**
+	 * 水平线末端的x（y和elbowY一样）
+	 */
+	public float   endX;
+	/**
+	 * 文字的区域
+	 */
+	public int     textLeft;
+	public int     textTop;
+	public int     textRight;
+	public int     textBottom;
+	/**
+	 * 文字是不是在圆的左边（在左边的时候文字往左边画）
+	 */
+	public boolean isLeft;
+
+	/**
+	 * 圆弧一半的位置，转换到[0, 360)
+	 */
+	public static float middleAngle(float startAngle, float sweepAngle, float rotate) {
+		float middle = (startAngle + sweepAngle / 2 + rotate) % 360;
+		if (middle < 0) {
+			middle += 360;
+		}
+		return middle;
+	}
+
+	/**
+	 * 计算文字标记的位置
+	 *
+	 * @param centerX     圆心x
+	 * @param centerY     圆心y
+	 * @param middle      圆弧一半的位置 {@link #middleAngle(float, float, float)}
+	 * @param radius      半径（选中的时候要加上拉出来的距离）
+	 * @param markerLine1 延着半径多出来的长度
+	 * @param markerLine2 水平方向多出来的长度
+	 * @param textWidth   文字的宽度
+	 * @param textHeight  文字的高度
+	 */
+	public void layout(float centerX, float centerY, float middle, float radius, float markerLine1, float markerLine2,
+					   float textWidth, float textHeight) {
+		float cos = FastMath.cosDegrees(middle);
+		float sin = FastMath.sinDegrees(middle);
+		// 找到圆边缘上的点
+		startX = centerX + radius * cos;
+		startY = centerY + radius * sin;
+		elbowX = centerX + (markerLine1 + radius) * cos;
+		elbowY = centerY + (markerLine1 + radius) * sin;
+		// 左边 右边的判断
+		isLeft = 270f > middle && middle > 90f;
+		if (isLeft) {
+			endX = elbowX - markerLine2;
+		} else {
+			endX = elbowX + markerLine2;
+		}
+		// 文字的区域
+		textTop = (int) (elbowY - textHeight / 2);
+		textLeft = isLeft ? (int) (endX - textWidth) : (int) endX;
+		textBottom = (int) (textTop + textHeight);
+		textRight = (int) (textLeft + textWidth);
+	}
+
+	/**
+	 * 判断两个矩形是否有重叠的部分
+	 */
+	public static boolean isCollision(int x1, int y1, int w1, int h1, int x2, int y2, int w2, int h2) {
+		if (x1 >= x2 && x1 >= x2 + w2) {
+			return false;
+		} else if (x1 <= x2 && x1 + w1 <= x2) {
+			return false;
+		} else if (y1 >= y2 && y1 >= y2 + h2) {
+			return false;
+		} else if (y1 <= y2 && y1 + h1 <= y2) {
+			return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,425 @@
+package com.example.piecore;
+
+/**
+ * 所有文字标记的位置，一块饼一个下标，数组提前分配好，layout的时候不会再创建对象
+ * 重叠的规则和原来一样：和上一个画出来的比较，最后一个还要和第一个比较，重叠了就不画
+ * 算好的结果按（数据版本，圆心，旋转角度，选中的下标）缓存起来，{@link #update}的时候只重新算变了的部分
+ * 也可以切换成{@link #PLACEMENT_GLOBAL}，用{@link LabelPlacer}把所有文字一起摆开
+ */
+public final class LabelLayout {
+
+	/**
+	 * 原来的规则：只和上一个（最后一个还有第一个）比较，重叠了就不画
+	 */
+	public static final int PLACEMENT_SEQUENTIAL = 0;
+	/**
+	 * 全局摆放：左右两列分别上下挪开，放不下的时候才不画
+	 */
+	public static final int PLACEMENT_GLOBAL     = 1;
+
+	private final LabelGeometry mGeometry = new LabelGeometry();
+	private final LabelPlacer   mPlacer   = new LabelPlacer();
+
+	private float[]   mStartX;
+	private float[]   mStartY;
+	private float[]   mElbowX;
+	private float[]   mElbowY;
+	private float[]   mEndX;
+	private int[]     mTextLeft;
+	private int[]     mTextTop;
+	private int[]     mTextRight;
+	private int[]     mTextBottom;
+	/**
+	 * 水平线（也就是文字中心）的y，全局摆放的时候可能和mElbowY不一样
+	 */
+	private float[]   mLineY;
+	private boolean[] mIsLeft;
+	private boolean[] mActive;
+	private boolean[] mVisible;
+	private int       mCount;
+	private int       mVisibleCount;
+
+	/**
+	 * 缓存的key，-1表示还没有算过
+	 */
+	private int       mDataVersion = -1;
+	private float     mCenterX;
+	private float     mCenterY;
+	private float     mRotate;
+	private int       mSelectIndex;
+	private float     mRadius;
+	private float     mSelectOffset;
+	private float     mMarkerLine1;
+	private float     mMarkerLine2;
+	private float     mTextHeight;
+
+	private int       mPlacement = PLACEMENT_SEQUENTIAL;
+	/**
+	 * 全局摆放的时候文字能放的上下边界
+	 */
+	private float     mBoundsTop;
+	private float     mBoundsBottom;
+
+	public LabelLayout() {
+		ensureCapacity(0);
+	}
+
+	/**
+	 * 保证数组够用，只有变大的时候才会重新分配
+	 */
+	public void ensureCapacity(int count) {
+		if (mVisible != null && mVisible.length >= count) {
+			return;
+		}
+		mStartX = new float[count];
+		mStartY = new float[count];
+		mElbowX = new float[count];
+		mElbowY = new float[count];
+		mEndX = new float[count];
+		mTextLeft = new int[count];
+		mTextTop = new int[count];
+		mTextRight = new int[count];
+		mTextBottom = new int[count];
+		mLineY = new float[count];
+		mIsLeft = new boolean[count];
+		mActive = new boolean[count];
+		mVisible = new boolean[count];
+	}
+
+	/**
+	 * 设置摆放的方式
+	 *
+	 * @param placement {@link #PLACEMENT_SEQUENTIAL} 或者 {@link #PLACEMENT_GLOBAL}
+	 * @param top       全局摆放的时候文字能放的上边界
+	 * @param bottom    全局摆放的时候文字能放的下边界
+	 */
+	public void setPlacement(int placement, float top, float bottom) {
+		if (placement == mPlacement && top == mBoundsTop && bottom == mBoundsBottom) {
+			return;
+		}
+		mPlacement = placement;
+		mBoundsTop = top;
+		mBoundsBottom = bottom;
+		invalidate();
+	}
+
+	public int getPlacement() {
+		return mPlacement;
+	}
+
+	/**
+	 * 有缓存的计算，和上一次的参数比较：
+	 * 1. 什么都没变，直接用上一次的结果
+	 * 2. 只有选中变了，只重新算之前选中的和现在选中的那两块，重叠也只从变了的地方往后判断到和原来一样为止
+	 * 3. 其他的情况全部重新算
+	 *
+	 * @param dataVersion 数据的版本，数据变了就要换一个版本
+	 * @return 这次有没有重新计算
+	 */
+	public boolean update(int dataVersion, float centerX, float centerY, float[] startAngles, float[] sweepAngles,
+						  LabelTextBuffer texts, int count, float rotate, int selectIndex, float radius, float selectOffset,
+						  float markerLine1, float markerLine2, float textHeight) {
+		boolean sameGeometry = dataVersion == mDataVersion && count == mCount && centerX == mCenterX && centerY == mCenterY
+							   && rotate == mRotate && radius == mRadius && selectOffset == mSelectOffset
+							   && markerLine1 == mMarkerLine1 && markerLine2 == mMarkerLine2 && textHeight == mTextHeight;
+		if (sameGeometry && selectIndex == mSelectIndex) {
+			return false;
+		}
+		if (sameGeometry) {
+			// 只有选中变了
+			int oldSelectIndex = mSelectIndex;
+			mSelectIndex = selectIndex;
+			if (oldSelectIndex >= 0 && oldSelectIndex < count) {
+				layoutOne(oldSelectIndex, startAngles, sweepAngles, texts);
+			}
+			if (selectIndex >= 0 && selectIndex < count) {
+				layoutOne(selectIndex, startAngles, sweepAngles, texts);
+			}
+			if (mPlacement == PLACEMENT_SEQUENTIAL) {
+				repairSequential(sweepAngles, oldSelectIndex, selectIndex);
+			} else {
+				resolveCollisions(sweepAngles);
+			}
+			return true;
+		}
+		layout(centerX, centerY, startAngles, sweepAngles, texts, count, rotate, selectIndex, radius, selectOffset,
+			   markerLine1, markerLine2, textHeight);
+		mDataVersion = dataVersion;
+		return true;
+	}
+
+	/**
+	 * 下次{@link #update}的时候全部重新算
+	 */
+	public void invalidate() {
+		mDataVersion = -1;
+	}
+
+	/**
+	 * 计算所有文字标记的位置，并且判断重叠
+	 *
+	 * @param centerX      圆心x
+	 * @param centerY      圆心y
+	 * @param startAngles  每一块的开始角度
+	 * @param sweepAngles  每一块扫过的角度
+	 * @param texts        每一块的文字（要用到宽度）
+	 * @param count        有效的个数
+	 * @param rotate       旋转的角度
+	 * @param selectIndex  选中的下标，没有选中传-1
+	 * @param radius       半径
+	 * @param selectOffset 选中的时候拉出来的距离
+	 * @param markerLine1  延着半径多出来的长度
+	 * @param markerLine2  水平方向多出来的长度
+	 * @param textHeight   文字的高度
+	 * @return 能画出来的个数
+	 */
+	public int layout(float centerX, float centerY, float[] startAngles, float[] sweepAngles, LabelTextBuffer texts,
+					  int count, float rotate, int selectIndex, float radius, float selectOffset, float markerLine1,
+					  float markerLine2, float textHeight) {
+		ensureCapacity(count);
+		mCount = count;
+		mCenterX = centerX;
+		mCenterY = centerY;
+		mRotate = rotate;
+		mSelectIndex = selectIndex;
+		mRadius = radius;
+		mSelectOffset = selectOffset;
+		mMarkerLine1 = markerLine1;
+		mMarkerLine2 = markerLine2;
+		mTextHeight = textHeight;
+		// 这样直接调用的结果不能当缓存用
+		mDataVersion = -1;
+		for (int index = 0; index < count; index++) {
+			if (sweepAngles[index] != 0) {
+				layoutOne(index, startAngles, sweepAngles, texts);
+			}
+		}
+		return resolveCollisions(sweepAngles);
+	}
+
+	/**
+	 * 算一块的线和文字的位置
+	 */
+	private void layoutOne(int index, float[] startAngles, float[] sweepAngles, LabelTextBuffer texts) {
+		float middle = LabelGeometry.middleAngle(startAngles[index], sweepAngles[index], mRotate);
+		float realRadius = index == mSelectIndex ? mRadius + mSelectOffset : mRadius;
+		LabelGeometry geometry = mGeometry;
+		geometry.layout(mCenterX, mCenterY, middle, realRadius, mMarkerLine1, mMarkerLine2, texts.getWidth(index), mTextHeight);
+		mStartX[index] = geometry.startX;
+		mStartY[index] = geometry.startY;
+		mElbowX[index] = geometry.elbowX;
+		mElbowY[index] = geometry.elbowY;
+		mEndX[index] = geometry.endX;
+		mTextLeft[index] = geometry.textLeft;
+		mTextTop[index] = geometry.textTop;
+		mTextRight[index] = geometry.textRight;
+		mTextBottom[index] = geometry.textBottom;
+		mLineY[index] = geometry.elbowY;
+		mIsLeft[index] = geometry.isLeft;
+	}
+
+	/**
+	 * 判断重叠，决定哪些能画出来
+	 */
+	private int resolveCollisions(float[] sweepAngles) {
+		if (mPlacement == PLACEMENT_GLOBAL) {
+			return placeGlobal(sweepAngles);
+		}
+		return resolveSequential(sweepAngles);
+	}
+
+	/**
+	 * 全局摆放，文字上下挪开，线的拐点跟着文字走
+	 */
+	private int placeGlobal(float[] sweepAngles) {
+		int count = mCount;
+		for (int index = 0; index < count; index++) {
+			mActive[index] = sweepAngles[index] != 0;
+			mVisible[index] = false;
+		}
+		int visibleCount = mPlacer.place(mElbowY, mIsLeft, sweepAngles, mActive, count, mTextHeight, mBoundsTop, mBoundsBottom,
+										 mLineY, mVisible);
+		for (int index = 0; index < count; index++) {
+			if (mVisible[index]) {
+				mTextTop[index] = (int) (mLineY[index] - mTextHeight / 2);
+				mTextBottom[index] = (int) (mTextTop[index] + mTextHeight);
+			}
+		}
+		mVisibleCount = visibleCount;
+		return visibleCount;
+	}
+
+	/**
+	 * 按顺序判断重叠
+	 */
+	private int resolveSequential(float[] sweepAngles) {
+		int count = mCount;
+		// 上一个画出来的文字区域
+		int preLeft = 0, preTop = 0, preRight = 0, preBottom = 0;
+		// 第一个文字区域
+		int firstLeft = 0, firstTop = 0, firstRight = 0, firstBottom = 0;
+		int visibleCount = 0;
+		for (int index = 0; index < count; index++) {
+			mVisible[index] = false;
+			if (sweepAngles[index] == 0) {
+				// 没有比例的不画
+				continue;
+			}
+			if (index == 0) {
+				// 记录第一个
+				firstLeft = mTextLeft[index];
+				firstTop = mTextTop[index];
+				firstRight = mTextRight[index];
+				firstBottom = mTextBottom[index];
+			}
+			boolean preEmpty = preLeft >= preRight || preTop >= preBottom;
+			boolean visible = preEmpty || !isCollision(preLeft, preTop, preRight, preBottom, index);
+			if (visible && index == count - 1 && count > 1 && !preEmpty) {
+				// 最后一个，不仅和前面的判断了还和第一个判断
+				visible = !isCollision(firstLeft, firstTop, firstRight, firstBottom, index);
+			}
+			if (visible) {
+				preLeft = mTextLeft[index];
+				preTop = mTextTop[index];
+				preRight = mTextRight[index];
+				preBottom = mTextBottom[index];
+				mVisible[index] = true;
+				visibleCount++;
+			}
+		}
+		mVisibleCount = visibleCount;
+		return visibleCount;
+	}
+
+	/**
+	 * 只有changed1、changed2这两块的文字区域变了的时候，从变了的地方开始按顺序重新判断重叠
+	 * 往后判断到某一块结果还是画、之前也是画的时候，后面的"上一个画出来的"就和原来一样了，直接停下来
+	 * 所以点一下选中的开销和总共多少块没关系，只和中间连续不画的有多少块有关系
+	 */
+	private void repairSequential(float[] sweepAngles, int changed1, int changed2) {
+		int count = mCount;
+		int from = Integer.MAX_VALUE;
+		int through = -1;
+		if (changed1 >= 0 && changed1 < count) {
+			from = changed1;
+			through = changed1;
+		}
+		if (changed2 >= 0 && changed2 < count) {
+			from = Math.min(from, changed2);
+			through = Math.max(through, changed2);
+		}
+		if (through < 0) {
+			return;
+		}
+		if (from == 0) {
+			// 第一个变了，最后一个要和它比较，只能全部重新判断
+			resolveSequential(sweepAngles);
+			return;
+		}
+		// 找from前面最后一个画出来的，当作上一个
+		int preLeft = 0, preTop = 0, preRight = 0, preBottom = 0;
+		for (int index = from - 1; index >= 0; index--) {
+			if (mVisible[index]) {
+				preLeft = mTextLeft[index];
+				preTop = mTextTop[index];
+				preRight = mTextRight[index];
+				preBottom = mTextBottom[index];
+				break;
+			}
+		}
+		int firstLeft = 0, firstTop = 0, firstRight = 0, firstBottom = 0;
+		if (sweepAngles[0] != 0) {
+			firstLeft = mTextLeft[0];
+			firstTop = mTextTop[0];
+			firstRight = mTextRight[0];
+			firstBottom = mTextBottom[0];
+		}
+		int visibleCount = mVisibleCount;
+		for (int index = from; index < count; index++) {
+			boolean wasVisible = mVisible[index];
+			boolean visible = false;
+			if (sweepAngles[index] != 0) {
+				boolean preEmpty = preLeft >= preRight || preTop >= preBottom;
+				visible = preEmpty || !isCollision(preLeft, preTop, preRight, preBottom, index);
+				if (visible && index == count - 1 && count > 1 && !preEmpty) {
+					visible = !isCollision(firstLeft, firstTop, firstRight, firstBottom, index);
+				}
+			}
+			mVisible[index] = visible;
+			if (visible != wasVisible) {
+				visibleCount += visible ? 1 : -1;
+			}
+			if (visible) {
+				if (wasVisible && index > through) {
+					// 从这里开始和原来一样
+					break;
+				}
+				preLeft = mTextLeft[index];
+				preTop = mTextTop[index];
+				preRight = mTextRight[index];
+				preBottom = mTextBottom[index];
+			}
+		}
+		mVisibleCount = visibleCount;
+	}
+
+	private boolean isCollision(int left, int top, int right, int bottom, int index) {
+		return LabelGeometry.isCollision(left, top, right - left, bottom - top, mTextLeft[index], mTextTop[index],
+										 mTextRight[index] - mTextLeft[index], mTextBottom[index] - mTextTop[index]);
+	}
+
+	public int getCount() {
+		return mCount;
+	}
+
+	public int getVisibleCount() {
+		return mVisibleCount;
+	}
+
+	public boolean isVisible(int index) {
+		return mVisible[index];
+	}
+
+	public float getStartX(int index) {
+		return mStartX[index];
+	}
+
+	public float getStartY(int index) {
+		return mStartY[index];
+	}
+
+	public float getElbowX(int index) {
+		return mElbowX[index];
+	}
+
+	public float getElbowY(int index) {
+		return mElbowY[index];
+	}
+
+	public float getEndX(int index) {
+		return mEndX[index];
+	}
+
+	/**
+	 * 水平线（文字中心）的y，线是 start -> (elbowX, lineY) -> (endX, lineY)
+	 */
+	public float getLineY(int index) {
+		return mLineY[index];
+	}
+
+	public int getTextLeft(int index) {
+		return mTextLeft[index];
+	}
+
+	public int getTextTop(int index) {
+		return mTextTop[index];
+	}
+
+	public int getTextRight(int index) {
+		return mTextRight[index];
+	}
+
+	public int getTextBottom(int index) {
+		return mTextBottom[index];
+	}
+}
@@ -0,0 +1,239 @@
+package com.example.piecore;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 全局的文字标记摆放
+ * 圆左边和右边的文字分成两列，每一列按想放的y排序以后从上往下扫一遍、再从下往上扫一遍，
+ * 重叠的时候把文字上下挪开，而不是直接不画。一列放不下的时候按优先级（扫过的角度）保留大的。
+ * 排序用基数排序，复杂度O(n)，两列互不影响，个数很多的时候两列并行算；数组都是复用的，并行的时候每一帧也不分配
+ */
+public final class LabelPlacer {
+
+	/**
+	 * 超过这个个数两列并行算
+	 */
+	public static final int PARALLEL_THRESHOLD = 4096;
+
+	private final Side      mLeft      = new Side(true);
+	private final Side      mRight     = new Side(false);
+	/**
+	 * 并行的时候右边一列放到池子里算的任务，每次重置以后复用，每一帧不再创建
+	 */
+	private final SideTask  mRightTask = new SideTask(mRight);
+
+	/**
+	 * 摆放所有的文字
+	 *
+	 * @param desiredY    每个文字想放的位置（文字中心的y）
+	 * @param isLeft      每个文字是不是在圆的左边
+	 * @param priority    优先级，放不下的时候保留大的，不能是负数
+	 * @param active      哪些要参与摆放（扫过的角度是0的不参与）
+	 * @param count       个数
+	 * @param labelHeight 文字的高度
+	 * @param top         能放的区域的上边
+	 * @param bottom      能放的区域的下边
+	 * @param outY        输出：摆好以后文字中心的y
+	 * @param outVisible  输出：是否画出来
+	 * @return 能画出来的个数
+	 */
+	public int place(float[] desiredY, boolean[] isLeft, float[] priority, boolean[] active, int count, float labelHeight,
+					 float top, float bottom, float[] outY, boolean[] outVisible) {
+		mLeft.prepare(desiredY, isLeft, priority, active, count, labelHeight, top, bottom, outY, outVisible);
+		mRight.prepare(desiredY, isLeft, priority, active, count, labelHeight, top, bottom, outY, outVisible);
+		if (count >= PARALLEL_THRESHOLD) {
+			// 右边一列放到公共的池子里，左边一列在当前线程算
+			mRightTask.reinitialize();
+			ForkJoinPool.commonPool().execute(mRightTask);
+			mLeft.place();
+			if (mRightTask.tryUnfork()) {
+				// 池子里的线程都在忙，还没开始算，自己算
+				mRight.place();
+			} else {
+				// 两列差不多一样多，已经快算完了；不用join阻塞等，阻塞等的时候JDK里面会创建等待的节点
+				while (!mRightTask.isDone()) {
+					Thread.yield();
+				}
+				// 算的时候抛了异常的话在这里抛出来
+				mRightTask.join();
+			}
+		} else {
+			mLeft.place();
+			mRight.place();
+		}
+		return mLeft.mVisibleCount + mRight.mVisibleCount;
+	}
+
+	/**
+	 * float转换成可以直接按int比较大小的值
+	 */
+	private static int sortableBits(float value) {
+		int bits = Float.floatToIntBits(value);
+		return bits ^ ((bits >> 31) & 0x7fffffff);
+	}
+
+	private static final class SideTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Side mSide;
+
+		SideTask(Side side) {
+			mSide = side;
+		}
+
+		@Override
+		protected void compute() {
+			mSide.place();
+		}
+	}
+
+	/**
+	 * 一列的摆放，排序用的数组复用
+	 */
+	private static final class Side {
+
+		private final boolean   mIsLeft;
+		/**
+		 * 高32位是排序的值，低32位是下标
+		 */
+		private long[]          mKeys    = new long[0];
+		/**
+		 * 基数排序用的
+		 */
+		private long[]          mScratch = new long[0];
+		private final int[]     mCounts  = new int[256];
+		private int             mSize;
+		private int             mVisibleCount;
+
+		private float[]         mDesiredY;
+		private float[]         mPriority;
+		private float           mLabelHeight;
+		private float           mTop;
+		private float           mBottom;
+		private float[]         mOutY;
+		private boolean[]       mOutVisible;
+
+		Side(boolean isLeft) {
+			mIsLeft = isLeft;
+		}
+
+		void prepare(float[] desiredY, boolean[] isLeft, float[] priority, boolean[] active, int count, float labelHeight,
+					 float top, float bottom, float[] outY, boolean[] outVisible) {
+			mDesiredY = desiredY;
+			mPriority = priority;
+			mLabelHeight = labelHeight;
+			mTop = top;
+			mBottom = bottom;
+			mOutY = outY;
+			mOutVisible = outVisible;
+			if (mKeys.length < count) {
+				mKeys = new long[count];
+			}
+			int size = 0;
+			for (int index = 0; index < count; index++) {
+				if (active[index] && isLeft[index] == mIsLeft) {
+					mKeys[size++] = index;
+				}
+			}
+			mSize = size;
+		}
+
+		void place() {
+			long[] keys = mKeys;
+			int size = mSize;
+			float height = mLabelHeight;
+			int capacity = height <= 0 ? size : (int) Math.min(size, Math.floor((mBottom - mTop) / height));
+			if (capacity < 0) {
+				capacity = 0;
+			}
+			if (capacity < size) {
+				// 放不下，按优先级排序，只保留最大的capacity个
+				for (int i = 0; i < size; i++) {
+					int index = (int) keys[i];
+					keys[i] = ((long) sortableBits(mPriority[index]) << 32) | index;
+				}
+				sort(size);
+				for (int i = 0; i < size - capacity; i++) {
+					mOutVisible[(int) keys[i]] = false;
+				}
+				System.arraycopy(keys, size - capacity, keys, 0, capacity);
+				size = capacity;
+			}
+			// 按想放的位置从上到下排序
+			for (int i = 0; i < size; i++) {
+				int index = (int) keys[i];
+				keys[i] = ((long) sortableBits(mDesiredY[index]) << 32) | (index & 0xffffffffL);
+			}
+			sort(size);
+			// 从上往下，和上一个重叠就往下挪
+			float limit = mTop + height / 2;
+			for (int i = 0; i < size; i++) {
+				int index = (int) keys[i];
+				float y = Math.max(mDesiredY[index], limit);
+				mOutY[index] = y;
+				limit = y + height;
+			}
+			// 从下往上，超出下边的往上挪
+			limit = mBottom - height / 2;
+			for (int i = size - 1; i >= 0; i--) {
+				int index = (int) keys[i];
+				float y = Math.min(mOutY[index], limit);
+				mOutY[index] = y;
+				mOutVisible[index] = true;
+				limit = y - height;
+			}
+			mVisibleCount = size;
+		}
+
+		/**
+		 * mKeys的前size个按有符号的大小从小到大排
+		 * 基数排序，每次8位，所有key这8位都一样的时候跳过；Arrays.sort遇到一段一段有序的数据（角度本来就是有序的）会另外分配合并用的数组
+		 */
+		private void sort(int size) {
+			if (size < 2) {
+				return;
+			}
+			if (mScratch.length < size) {
+				mScratch = new long[mKeys.length];
+			}
+			long[] from = mKeys;
+			long[] to = mScratch;
+			int[] counts = mCounts;
+			for (int shift = 0; shift < 64; shift += 8) {
+				Arrays.fill(counts, 0);
+				for (int i = 0; i < size; i++) {
+					counts[digit(from[i], shift)]++;
+				}
+				if (counts[digit(from[0], shift)] == size) {
+					continue;
+				}
+				int offset = 0;
+				for (int digit = 0; digit < counts.length; digit++) {
+					int count = counts[digit];
+					counts[digit] = offset;
+					offset += count;
+				}
+				for (int i = 0; i < size; i++) {
+					long key = from[i];
+					to[counts[digit(key, shift)]++] = key;
+				}
+				long[] swap = from;
+				from = to;
+				to = swap;
+			}
+			if (from != mKeys) {
+				System.arraycopy(from, 0, mKeys, 0, size);
+			}
+		}
+
+		/**
+		 * 最高位取反以后按无符号的8位一组取出来，顺序和有符号的比较一样
+		 */
+		private static int digit(long key, int shift) {
+			return (int) ((key ^ Long.MIN_VALUE) >>> shift) & 0xff;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.example.piecore;
+
+/**
+ * 所有文字标记放在一个char数组里面，绘制的时候直接用下标去画，不用每一帧去拼字符串
+ */
+public final class LabelTextBuffer {
+
+	/**
+	 * 所有文字连在一起
+	 */
+	private char[]  mChars;
+	/**
+	 * 每一块文字的开始位置
+	 */
+	private int[]   mOffsets;
+	/**
+	 * 每一块文字的长度
+	 */
+	private int[]   mLengths;
+	/**
+	 * 每一块文字的宽度（外部量好了设置进来）
+	 */
+	private float[] mWidths;
+	/**
+	 * 已经放进来的个数
+	 */
+	private int     mCount;
+	/**
+	 * mChars里面已经用掉的长度
+	 */
+	private int     mCharCount;
+
+	public LabelTextBuffer() {
+		mChars = new char[0];
+		mOffsets = new int[0];
+		mLengths = new int[0];
+		mWidths = new float[0];
+	}
+
+	/**
+	 * 清空，重新准备count个文字
+	 */
+	public void reset(int count) {
+		if (mOffsets.length < count) {
+			mOffsets = new int[count];
+			mLengths = new int[count];
+			mWidths = new float[count];
+		}
+		mCount = 0;
+		mCharCount = 0;
+	}
+
+	/**
+	 * 按顺序放一个文字进来
+	 *
+	 * @return 这个文字的下标
+	 */
+	public int append(CharSequence text) {
+		int length = text == null ? 0 : text.length();
+		if (mCount >= mOffsets.length) {
+			int capacity = Math.max(mCount + 1, mOffsets.length * 2);
+			mOffsets = copyOf(mOffsets, capacity);
+			mLengths = copyOf(mLengths, capacity);
+			float[] widths = new float[capacity];
+			System.arraycopy(mWidths, 0, widths, 0, mWidths.length);
+			mWidths = widths;
+		}
+		if (mCharCount + length > mChars.length) {
+			char[] chars = new char[Math.max(mCharCount + length, mChars.length * 2)];
+			System.arraycopy(mChars, 0, chars, 0, mCharCount);
+			mChars = chars;
+		}
+		for (int index = 0; index < length; index++) {
+			mChars[mCharCount + index] = text.charAt(index);
+		}
+		mOffsets[mCount] = mCharCount;
+		mLengths[mCount] = length;
+		mWidths[mCount] = 0;
+		mCharCount += length;
+		return mCount++;
+	}
+
+	public int getCount() {
+		return mCount;
+	}
+
+	public char[] getChars() {
+		return mChars;
+	}
+
+	public int getOffset(int index) {
+		return mOffsets[index];
+	}
+
+	public int getLength(int index) {
+		return mLengths[index];
+	}
+
+	public float getWidth(int index) {
+		return mWidths[index];
+	}
+
+	public void setWidth(int index, float width) {
+		mWidths[index] = width;
+	}
+
+	private static int[] copyOf(int[] src, int capacity) {
+		int[] dst = new int[capacity];
+		System.arraycopy(src, 0, dst, 0, src.length);
+		return dst;
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.piecore;
+
+/**
+ * 每一块文字的缓存
+ * 记住每一块上一次格式化时候的值、文字、百分比，数据变了以后只有这三个变了的块才重新格式化、重新量宽度，
+ * 其他的直接用上一次的字符串和宽度
+ */
+public final class LabelTextCache {
+
+	private String[]       mTexts    = new String[0];
+	private float[]        mWidths   = new float[0];
+	private double[]       mValues   = new double[0];
+	private String[]       mLabels   = new String[0];
+	private int[]          mPercents = new int[0];
+	private int            mCount;
+	/**
+	 * 上一次用的格式，换了格式全部重新来；null表示缓存无效
+	 */
+	private LabelFormatter mFormatter;
+
+	/**
+	 * 把每一块的文字和宽度放到out里面，dataSet要先{@link PieDataSet#computeAngles()}
+	 *
+	 * @return 这次重新格式化了几块
+	 */
+	public int update(PieDataSet dataSet, LabelFormatter formatter, TextMeasurer measurer, LabelTextBuffer out) {
+		int count = dataSet.getCount();
+		ensureCapacity(count);
+		boolean formatterChanged = formatter != mFormatter;
+		int[] percents = dataSet.getPercents();
+		int formatted = 0;
+		out.reset(count);
+		for (int index = 0; index < count; index++) {
+			double value = dataSet.getValue(index);
+			String label = dataSet.getLabel(index);
+			int percent = percents[index];
+			if (formatterChanged || index >= mCount || value != mValues[index] || percent != mPercents[index]
+					|| !equals(label, mLabels[index])) {
+				CharSequence text = formatter.format(dataSet, index);
+				mTexts[index] = text == null ? "" : text.toString();
+				mWidths[index] = measurer.measure(mTexts[index]);
+				mValues[index] = value;
+				mLabels[index] = label;
+				mPercents[index] = percent;
+				formatted++;
+			}
+			out.append(mTexts[index]);
+			out.setWidth(index, mWidths[index]);
+		}
+		// 多出来的不要再引用着
+		for (int index = count; index < mCount; index++) {
+			mTexts[index] = null;
+			mLabels[index] = null;
+		}
+		mCount = count;
+		mFormatter = formatter;
+		return formatted;
+	}
+
+	/**
+	 * 下一次update全部重新格式化（比如文字大小变了）
+	 */
+	public void invalidate() {
+		mFormatter = null;
+	}
+
+	private static boolean equals(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private void ensureCapacity(int count) {
+		if (mTexts.length >= count) {
+			return;
+		}
+		int capacity = Math.max(count, mTexts.length * 2);
+		String[] texts = new String[capacity];
+		float[] widths = new float[capacity];
+		double[] values = new double[capacity];
+		String[] labels = new String[capacity];
+		int[] percents = new int[capacity];
+		System.arraycopy(mTexts, 0, texts, 0, mCount);
+		System.arraycopy(mWidths, 0, widths, 0, mCount);
+		System.arraycopy(mValues, 0, values, 0, mCount);
+		System.arraycopy(mLabels, 0, labels, 0, mCount);
+		System.arraycopy(mPercents, 0, percents, 0, mCount);
+		mTexts = texts;
+		mWidths = widths;
+		mValues = values;
+		mLabels = labels;
+		mPercents = percents;
+	}
+}
@@ -0,0 +1,99 @@
+package com.example.piecore;
+
+/**
+ * 耗时的直方图，按2的幂分桶（纳秒），记录一次是O(1)，不创建对象
+ * 分位数返回的是所在那个桶的上界，最多大一倍，看趋势够用了
+ */
+public final class LatencyHistogram {
+
+	private static final int BUCKET_COUNT = 64;
+
+	private final long[] mBuckets = new long[BUCKET_COUNT];
+	private long         mCount;
+	private long         mTotalNanos;
+	private long         mMaxNanos;
+
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		mBuckets[bucketOf(nanos)]++;
+		mCount++;
+		mTotalNanos += nanos;
+		if (nanos > mMaxNanos) {
+			mMaxNanos = nanos;
+		}
+	}
+
+	public long getCount() {
+		return mCount;
+	}
+
+	public long getTotalNanos() {
+		return mTotalNanos;
+	}
+
+	public long getMaxNanos() {
+		return mMaxNanos;
+	}
+
+	public long getMeanNanos() {
+		return mCount == 0 ? 0 : mTotalNanos / mCount;
+	}
+
+	/**
+	 * 分位数
+	 *
+	 * @param percentile (0, 100]，比如50、90、99
+	 * @return 所在桶的上界（不超过最大值），没有数据的时候返回0
+	 */
+	public long getPercentileNanos(double percentile) {
+		if (mCount == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(percentile / 100 * mCount);
+		if (rank < 1) {
+			rank = 1;
+		}
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			seen += mBuckets[bucket];
+			if (seen >= rank) {
+				return Math.min(upperBound(bucket), mMaxNanos);
+			}
+		}
+		return mMaxNanos;
+	}
+
+	public void reset() {
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			mBuckets[bucket] = 0;
+		}
+		mCount = 0;
+		mTotalNanos = 0;
+		mMaxNanos = 0;
+	}
+
+	/**
+	 * 复制一份，给快照用
+	 */
+	public LatencyHistogram copy() {
+		LatencyHistogram copy = new LatencyHistogram();
+		System.arraycopy(mBuckets, 0, copy.mBuckets, 0, BUCKET_COUNT);
+		copy.mCount = mCount;
+		copy.mTotalNanos = mTotalNanos;
+		copy.mMaxNanos = mMaxNanos;
+		return copy;
+	}
+
+	/**
+	 * 0在第0个桶，[2^(i-1), 2^i)在第i个桶
+	 */
+	private static int bucketOf(long nanos) {
+		return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(nanos));
+	}
+
+	private static long upperBound(int bucket) {
+		return bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.piecore;
+
+/**
+ * 按像素合并的绘制分组（level of detail）
+ * 圆弧长度小于阈值的连续几块合并成一组，一组只画一次，组的颜色用组里面最大的那一块的颜色；
+ * 大于阈值的一块单独一组。只影响绘制，点击还是用真实的每一块
+ */
+public final class LodBuckets {
+
+	private float[] mStartAngles = new float[0];
+	private float[] mSweepAngles = new float[0];
+	private int[]   mColors      = new int[0];
+	/**
+	 * 组里面第一块和最后一块的下标
+	 */
+	private int[]   mFirst       = new int[0];
+	private int[]   mLast        = new int[0];
+	private int     mCount;
+
+	/**
+	 * 缓存的key，-1表示还没有算过
+	 */
+	private int     mDataVersion = -1;
+	private float   mRadius;
+	private float   mMinArcLength;
+
+	/**
+	 * 有缓存的分组，数据、半径、阈值都没变的时候直接用上一次的结果（旋转不影响分组）
+	 *
+	 * @return 这次有没有重新分组
+	 */
+	public boolean update(int dataVersion, PieDataSet dataSet, float radius, float minArcLength) {
+		if (dataVersion == mDataVersion && radius == mRadius && minArcLength == mMinArcLength) {
+			return false;
+		}
+		build(dataSet, radius, minArcLength);
+		mDataVersion = dataVersion;
+		return true;
+	}
+
+	/**
+	 * 重新分组，dataSet要先{@link PieDataSet#computeAngles()}
+	 *
+	 * @param radius       半径（像素）
+	 * @param minArcLength 圆弧长度小于这个（像素）的要合并
+	 * @return 组的个数
+	 */
+	public int build(PieDataSet dataSet, float radius, float minArcLength) {
+		mRadius = radius;
+		mMinArcLength = minArcLength;
+		mDataVersion = -1;
+		int count = dataSet.getCount();
+		ensureCapacity(count);
+		float[] startAngles = dataSet.getStartAngles();
+		float[] sweepAngles = dataSet.getSweepAngles();
+		// 圆弧长度小于阈值对应的角度
+		float minSweep = radius <= 0 ? 0 : (float) (minArcLength / radius * 180 / Math.PI);
+		int bucket = -1;
+		// 当前这一组是不是在合并小块
+		boolean merging = false;
+		float maxSweep = 0;
+		for (int index = 0; index < count; index++) {
+			float sweep = sweepAngles[index];
+			if (sweep == 0) {
+				// 0度的不画
+				continue;
+			}
+			boolean small = sweep < minSweep;
+			if (small && merging && mSweepAngles[bucket] < minSweep) {
+				// 接着合并到当前这一组
+				mSweepAngles[bucket] = startAngles[index] + sweep - mStartAngles[bucket];
+				mLast[bucket] = index;
+				if (sweep > maxSweep) {
+					maxSweep = sweep;
+					mColors[bucket] = dataSet.getColor(index);
+				}
+				continue;
+			}
+			bucket++;
+			mStartAngles[bucket] = startAngles[index];
+			mSweepAngles[bucket] = sweep;
+			mColors[bucket] = dataSet.getColor(index);
+			mFirst[bucket] = index;
+			mLast[bucket] = index;
+			merging = small;
+			maxSweep = sweep;
+		}
+		mCount = bucket + 1;
+		return mCount;
+	}
+
+	public void invalidate() {
+		mDataVersion = -1;
+	}
+
+	public int getCount() {
+		return mCount;
+	}
+
+	public float getStartAngle(int bucket) {
+		return mStartAngles[bucket];
+	}
+
+	public float getSweepAngle(int bucket) {
+		return mSweepAngles[bucket];
+	}
+
+	public int getColor(int bucket) {
+		return mColors[bucket];
+	}
+
+	public int getFirst(int bucket) {
+		return mFirst[bucket];
+	}
+
+	public int getLast(int bucket) {
+		return mLast[bucket];
+	}
+
+	private void ensureCapacity(int count) {
+		if (mFirst.length >= count) {
+			return;
+		}
+		mStartAngles = new float[count];
+		mSweepAngles = new float[count];
+		mColors = new int[count];
+		mFirst = new int[count];
+		mLast = new int[count];
+	}
+}
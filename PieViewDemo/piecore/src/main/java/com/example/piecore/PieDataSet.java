@@ -0,0 +1,460 @@
+package com.example.piecore;
+
+import java.util.HashMap;
+
+/**
+ * 按列存放的饼状图数据（structure of arrays）
+ * 每一块不再是一个对象，值、颜色、文字下标各是一个数组，文字按字典存放（一样的文字只存一份），
+ * 比例和角度也是数组，算一次缓存起来。一百万块的数据也只有几个数组
+ * 值的前缀和放在{@link PrefixSumTree}里面，改一块的值是O(log n)；单独一块的角度可以直接用前缀和算（{@link #getStartAngle}），
+ * 也是O(log n)，整个角度数组等到要用的时候再一次性重新算
+ */
+public final class PieDataSet {
+
+	/**
+	 * 没有文字
+	 */
+	public static final int NO_LABEL = -1;
+
+	private double[]                 mValues;
+	private int[]                    mColors;
+	/**
+	 * 每一块的文字在mLabels里面的下标
+	 */
+	private int[]                    mLabelIndices;
+	/**
+	 * 文字字典
+	 */
+	private String[]                 mLabels;
+	private int                      mLabelCount;
+	/**
+	 * 文字到下标的反查，add的时候去重用，需要的时候才创建
+	 */
+	private HashMap<String, Integer> mLabelLookup;
+	private int                      mCount;
+
+	/**
+	 * 缓存的比例和角度
+	 */
+	private float[]                  mRatios;
+	private float[]                  mStartAngles;
+	private float[]                  mSweepAngles;
+	/**
+	 * 百分比（万分之一），加起来正好是{@link PieNormalizer#PERCENT_SCALE}
+	 */
+	private int[]                    mPercents;
+	/**
+	 * 算百分比用的临时数组，留着下次用
+	 */
+	private long[]                   mPercentKeys = new long[0];
+	private boolean                  mAnglesDirty = true;
+	/**
+	 * 值的前缀和，mTreeValid是false的时候要重新建
+	 */
+	private final PrefixSumTree      mTree        = new PrefixSumTree();
+	private boolean                  mTreeValid;
+	/**
+	 * 缓存的内容哈希，数据改了就要重新算
+	 */
+	private long                     mContentHash;
+	private boolean                  mContentHashValid;
+	/**
+	 * 整个遍历一遍（重新算角度数组、重新建树）的次数，测试用
+	 */
+	private int                      mFullPassCount;
+
+	public PieDataSet() {
+		this(16);
+	}
+
+	public PieDataSet(int capacity) {
+		mValues = new double[capacity];
+		mColors = new int[capacity];
+		mLabelIndices = new int[capacity];
+		mLabels = new String[Math.min(capacity, 16)];
+		mRatios = new float[0];
+		mStartAngles = new float[0];
+		mSweepAngles = new float[0];
+		mPercents = new int[0];
+	}
+
+	/**
+	 * 直接用已经准备好的数组，不会复制
+	 *
+	 * @param values       每一块的值
+	 * @param colors       每一块的颜色
+	 * @param labelIndices 每一块的文字在labels里面的下标，可以是null（都没有文字）
+	 * @param labels       文字字典，可以是null
+	 * @param count        有效的个数
+	 */
+	public PieDataSet(double[] values, int[] colors, int[] labelIndices, String[] labels, int count) {
+		mValues = values;
+		mColors = colors;
+		mLabelIndices = labelIndices != null ? labelIndices : filled(count, NO_LABEL);
+		mLabels = labels != null ? labels : new String[0];
+		mLabelCount = mLabels.length;
+		mCount = count;
+		mRatios = new float[0];
+		mStartAngles = new float[0];
+		mSweepAngles = new float[0];
+		mPercents = new int[0];
+	}
+
+	/**
+	 * 加一块
+	 *
+	 * @return 这一块的下标
+	 */
+	public int add(double value, int color, String label) {
+		return add(value, color, label == null ? NO_LABEL : addLabel(label));
+	}
+
+	/**
+	 * 加一块，文字直接用字典里面的下标
+	 *
+	 * @return 这一块的下标
+	 */
+	public int add(double value, int color, int labelIndex) {
+		ensureCapacity(mCount + 1);
+		mValues[mCount] = value;
+		mColors[mCount] = color;
+		mLabelIndices[mCount] = labelIndex;
+		mAnglesDirty = true;
+		mContentHashValid = false;
+		if (mTreeValid) {
+			mTree.append(value);
+		}
+		return mCount++;
+	}
+
+	/**
+	 * 改一块的值，O(log n)；角度数组、百分比要等{@link #computeAngles()}，那是O(n)（总和变了每一块都变）
+	 */
+	public void setValue(int index, double value) {
+		checkIndex(index, mCount);
+		if (mTreeValid) {
+			mTree.add(index, value - mValues[index]);
+		}
+		mValues[index] = value;
+		mAnglesDirty = true;
+		mContentHashValid = false;
+	}
+
+	/**
+	 * 在index的位置插入一块，后面的往后挪，要挪数组所以是O(n)，前缀和下一次用的时候也要O(n)重新建
+	 */
+	public void insert(int index, double value, int color, String label) {
+		checkIndex(index, mCount + 1);
+		int labelIndex = label == null ? NO_LABEL : addLabel(label);
+		ensureCapacity(mCount + 1);
+		int moved = mCount - index;
+		System.arraycopy(mValues, index, mValues, index + 1, moved);
+		System.arraycopy(mColors, index, mColors, index + 1, moved);
+		System.arraycopy(mLabelIndices, index, mLabelIndices, index + 1, moved);
+		mValues[index] = value;
+		mColors[index] = color;
+		mLabelIndices[index] = labelIndex;
+		mCount++;
+		mAnglesDirty = true;
+		mContentHashValid = false;
+		mTreeValid = false;
+	}
+
+	/**
+	 * 删除一块，后面的往前挪，要挪数组所以是O(n)，前缀和下一次用的时候也要O(n)重新建；文字字典里面的文字不删
+	 */
+	public void remove(int index) {
+		checkIndex(index, mCount);
+		int moved = mCount - index - 1;
+		System.arraycopy(mValues, index + 1, mValues, index, moved);
+		System.arraycopy(mColors, index + 1, mColors, index, moved);
+		System.arraycopy(mLabelIndices, index + 1, mLabelIndices, index, moved);
+		mCount--;
+		mAnglesDirty = true;
+		mContentHashValid = false;
+		mTreeValid = false;
+	}
+
+	/**
+	 * 往字典里面加一个文字，已经有了的直接返回原来的下标
+	 */
+	public int addLabel(String label) {
+		if (mLabelLookup == null) {
+			mLabelLookup = new HashMap<>();
+			for (int index = 0; index < mLabelCount; index++) {
+				mLabelLookup.put(mLabels[index], index);
+			}
+		}
+		Integer existing = mLabelLookup.get(label);
+		if (existing != null) {
+			return existing;
+		}
+		if (mLabelCount == mLabels.length) {
+			String[] labels = new String[Math.max(16, mLabelCount * 2)];
+			System.arraycopy(mLabels, 0, labels, 0, mLabelCount);
+			mLabels = labels;
+		}
+		mLabels[mLabelCount] = label;
+		mLabelLookup.put(label, mLabelCount);
+		return mLabelCount++;
+	}
+
+	public void clear() {
+		mCount = 0;
+		mLabelCount = 0;
+		mLabelLookup = null;
+		mAnglesDirty = true;
+		mContentHashValid = false;
+		mTreeValid = false;
+	}
+
+	/**
+	 * 算比例和角度，数据没变的时候直接返回
+	 */
+	public void computeAngles() {
+		if (!mAnglesDirty) {
+			return;
+		}
+		if (mRatios.length < mCount) {
+			mRatios = new float[mCount];
+			mStartAngles = new float[mCount];
+			mSweepAngles = new float[mCount];
+			mPercents = new int[mCount];
+		}
+		if (mPercentKeys.length < mCount) {
+			mPercentKeys = new long[mRatios.length];
+		}
+		PieNormalizer.normalize(mValues, mCount, mRatios, mStartAngles, mSweepAngles);
+		PieNormalizer.percentages(mValues, mCount, mPercents, mPercentKeys);
+		mAnglesDirty = false;
+		mFullPassCount++;
+		// 树不在这里重新建，setValue是在原来的树上O(log n)改的，插入、删除以后才要重新建
+	}
+
+	/**
+	 * 第index块的开始角度，直接用前缀和算，O(log n)，数据改过以后不用等{@link #computeAngles()}
+	 * 和computeAngles算出来的只差float的舍入
+	 */
+	public float getStartAngle(int index) {
+		checkIndex(index, mCount);
+		ensureTree();
+		return angleOf(mTree.prefixSum(index), mTree.total());
+	}
+
+	/**
+	 * 第index块扫过的角度，O(log n)，最后一块正好到360度
+	 */
+	public float getSweepAngle(int index) {
+		checkIndex(index, mCount);
+		ensureTree();
+		double total = mTree.total();
+		if (!(total > 0)) {
+			return 0;
+		}
+		float end = index == mCount - 1 ? 360 : angleOf(mTree.prefixSum(index + 1), total);
+		return end - angleOf(mTree.prefixSum(index), total);
+	}
+
+	/**
+	 * 第index块的比例，O(log n)
+	 */
+	public float getRatio(int index) {
+		checkIndex(index, mCount);
+		ensureTree();
+		double total = mTree.total();
+		return total > 0 ? (float) (mValues[index] / total) : 0;
+	}
+
+	private static float angleOf(double preSum, double total) {
+		return total > 0 ? (float) (preSum / total * 360) : 0;
+	}
+
+	int getFullPassCount() {
+		return mFullPassCount;
+	}
+
+	/**
+	 * 值、颜色、文字的64位哈希，内容一样的两份数据哈希一样（缓存渲染结果的key用），算一次缓存起来
+	 * 文字是每个字符都混进去的，不用String.hashCode()（32位，"Aa"和"BB"一样）
+	 * FNV-1a不是加密哈希，可以故意构造出碰撞，正常的数据碰撞的概率在2^-64量级
+	 */
+	public long contentHash() {
+		if (mContentHashValid) {
+			return mContentHash;
+		}
+		// FNV-1a，每次混进去一个64位的数
+		long hash = 0xcbf29ce484222325L;
+		hash = mix(hash, mCount);
+		for (int index = 0; index < mCount; index++) {
+			hash = mix(hash, Double.doubleToLongBits(mValues[index]));
+			hash = mix(hash, mColors[index]);
+			hash = mixLabel(hash, getLabel(index));
+		}
+		mContentHash = hash;
+		mContentHashValid = true;
+		return hash;
+	}
+
+	/**
+	 * 先混长度再混每个字符，没有文字的时候混-1，和空字符串区分开
+	 */
+	private static long mixLabel(long hash, String label) {
+		if (label == null) {
+			return mix(hash, -1);
+		}
+		int length = label.length();
+		hash = mix(hash, length);
+		for (int index = 0; index < length; index++) {
+			hash ^= label.charAt(index);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	private static long mix(long hash, long value) {
+		for (int shift = 0; shift < 64; shift += 16) {
+			hash ^= (value >>> shift) & 0xffff;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * 直接用之前算好的比例和角度（从快照恢复的时候），不再重新算；数组不会复制，长度要大于等于getCount()
+	 */
+	public void restoreAngles(float[] ratios, float[] startAngles, float[] sweepAngles, int[] percents) {
+		mRatios = ratios;
+		mStartAngles = startAngles;
+		mSweepAngles = sweepAngles;
+		mPercents = percents;
+		mAnglesDirty = false;
+		// 前缀和树要用的时候再建
+		mTreeValid = false;
+	}
+
+	/**
+	 * 数据改过以后角度还没有重新算
+	 */
+	public boolean isAnglesDirty() {
+		return mAnglesDirty;
+	}
+
+	/**
+	 * 所有值的和，O(log n)
+	 */
+	public double getTotal() {
+		ensureTree();
+		return mTree.total();
+	}
+
+	/**
+	 * index前面所有值的和，O(log n)
+	 */
+	public double getPrefixSum(int index) {
+		ensureTree();
+		return mTree.prefixSum(index);
+	}
+
+	/**
+	 * 通过没有旋转的角度直接用前缀和找是哪一块，不用等角度重新算，O(log n)
+	 *
+	 * @param angle [0, 360)
+	 * @return 下标，没找到返回-1
+	 */
+	public int indexOfAngle(float angle) {
+		ensureTree();
+		return mTree.indexOf(angle / 360.0 * mTree.total());
+	}
+
+	public int getCount() {
+		return mCount;
+	}
+
+	public double getValue(int index) {
+		return mValues[index];
+	}
+
+	public int getColor(int index) {
+		return mColors[index];
+	}
+
+	public int getLabelIndex(int index) {
+		return mLabelIndices[index];
+	}
+
+	/**
+	 * 这一块的文字，没有的时候返回null
+	 */
+	public String getLabel(int index) {
+		int labelIndex = mLabelIndices[index];
+		return labelIndex == NO_LABEL ? null : mLabels[labelIndex];
+	}
+
+	public int getLabelCount() {
+		return mLabelCount;
+	}
+
+	public String getLabelAt(int labelIndex) {
+		return mLabels[labelIndex];
+	}
+
+	/**
+	 * 下面几个要先{@link #computeAngles()}，返回的数组长度可能比getCount()大
+	 */
+	/**
+	 * 百分比，12.34%是1234，所有的加起来正好是10000
+	 */
+	public int[] getPercents() {
+		return mPercents;
+	}
+
+	public float[] getRatios() {
+		return mRatios;
+	}
+
+	public float[] getStartAngles() {
+		return mStartAngles;
+	}
+
+	public float[] getSweepAngles() {
+		return mSweepAngles;
+	}
+
+	private void ensureTree() {
+		if (!mTreeValid) {
+			mTree.build(mValues, mCount);
+			mTreeValid = true;
+			mFullPassCount++;
+		}
+	}
+
+	private static void checkIndex(int index, int size) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (mValues.length >= capacity && mColors.length >= capacity && mLabelIndices.length >= capacity) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, mValues.length * 2);
+		double[] values = new double[newCapacity];
+		System.arraycopy(mValues, 0, values, 0, mCount);
+		mValues = values;
+		int[] colors = new int[newCapacity];
+		System.arraycopy(mColors, 0, colors, 0, mCount);
+		mColors = colors;
+		int[] labelIndices = new int[newCapacity];
+		System.arraycopy(mLabelIndices, 0, labelIndices, 0, mCount);
+		mLabelIndices = labelIndices;
+	}
+
+	private static int[] filled(int count, int value) {
+		int[] array = new int[count];
+		for (int index = 0; index < count; index++) {
+			array[index] = value;
+		}
+		return array;
+	}
+}
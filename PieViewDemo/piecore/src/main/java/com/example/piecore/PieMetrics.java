@@ -0,0 +1,208 @@
+package com.example.piecore;
+
+/**
+ * 绘制的统计：各个阶段的耗时直方图，加上几个计数
+ * 控件默认不创建这个对象，打开以后才记录；可以在任意线程记录（后台准备数据的时候也会记录），方法都是同步的
+ * 没画的文字和角度是0的块是最近一次画的时候的个数（不是累加的），没有变化的重绘再多也不会变大；
+ * 每秒重绘次数在取快照的时候也会按当前时间结算，不重绘的时候会降下来
+ */
+public final class PieMetrics {
+
+	/**
+	 * 算比例、角度、文字（设置数据的时候）
+	 */
+	public static final int STAGE_MODEL_BUILD  = 0;
+	/**
+	 * 画饼状图
+	 */
+	public static final int STAGE_ARC_DRAW     = 1;
+	/**
+	 * 算文字的位置和重叠
+	 */
+	public static final int STAGE_LABEL_LAYOUT = 2;
+	public static final int STAGE_COUNT        = 3;
+
+	/**
+	 * 每秒重绘次数按这么长的窗口算，也是回调的间隔
+	 */
+	public static final long WINDOW_NANOS = 1000000000L;
+
+	/**
+	 * 统计的回调，每个窗口回调一次
+	 */
+	public interface Listener {
+
+		void onMetrics(Snapshot snapshot);
+	}
+
+	private final LatencyHistogram[] mHistograms = new LatencyHistogram[STAGE_COUNT];
+	private long                     mHiddenLabels;
+	private long                     mZeroSweepSkips;
+	private long                     mInvalidations;
+	/**
+	 * 当前窗口的开始时间和窗口里面的重绘次数，-1表示还没开始
+	 */
+	private long                     mWindowStart = -1;
+	private long                     mWindowInvalidations;
+	private float                    mInvalidationsPerSecond;
+	private long                     mLastReport  = -1;
+
+	public PieMetrics() {
+		for (int stage = 0; stage < STAGE_COUNT; stage++) {
+			mHistograms[stage] = new LatencyHistogram();
+		}
+	}
+
+	public synchronized void record(int stage, long nanos) {
+		mHistograms[stage].record(nanos);
+	}
+
+	/**
+	 * 最近一次画的时候因为重叠没有画的文字
+	 */
+	public synchronized void setHiddenLabels(int count) {
+		mHiddenLabels = count;
+	}
+
+	/**
+	 * 最近一次画的时候角度是0没有画的块
+	 */
+	public synchronized void setZeroSweepSkips(int count) {
+		mZeroSweepSkips = count;
+	}
+
+	/**
+	 * 请求了一次重绘
+	 */
+	public synchronized void onInvalidate(long nowNanos) {
+		mInvalidations++;
+		if (mWindowStart < 0) {
+			mWindowStart = nowNanos;
+		}
+		mWindowInvalidations++;
+		rollWindow(nowNanos);
+	}
+
+	/**
+	 * 到了回调的时间没有（距离上一次超过一个窗口），画完一帧的时候问一下
+	 */
+	public synchronized boolean shouldReport(long nowNanos) {
+		if (mLastReport < 0) {
+			mLastReport = nowNanos;
+			return false;
+		}
+		if (nowNanos - mLastReport < WINDOW_NANOS) {
+			return false;
+		}
+		mLastReport = nowNanos;
+		rollWindow(nowNanos);
+		return true;
+	}
+
+	public Snapshot snapshot() {
+		return snapshot(System.nanoTime());
+	}
+
+	/**
+	 * @param nowNanos 现在的时间，到了窗口的长度就先结算每秒重绘次数（不重绘的时间也算进去）
+	 */
+	public synchronized Snapshot snapshot(long nowNanos) {
+		rollWindow(nowNanos);
+		LatencyHistogram[] histograms = new LatencyHistogram[STAGE_COUNT];
+		for (int stage = 0; stage < STAGE_COUNT; stage++) {
+			histograms[stage] = mHistograms[stage].copy();
+		}
+		return new Snapshot(histograms, mHiddenLabels, mZeroSweepSkips, mInvalidations, mInvalidationsPerSecond);
+	}
+
+	public synchronized void reset() {
+		for (int stage = 0; stage < STAGE_COUNT; stage++) {
+			mHistograms[stage].reset();
+		}
+		mHiddenLabels = 0;
+		mZeroSweepSkips = 0;
+		mInvalidations = 0;
+		mWindowStart = -1;
+		mWindowInvalidations = 0;
+		mInvalidationsPerSecond = 0;
+		mLastReport = -1;
+	}
+
+	/**
+	 * 窗口满了就算一次每秒重绘次数，开始下一个窗口
+	 */
+	private void rollWindow(long nowNanos) {
+		if (mWindowStart < 0) {
+			return;
+		}
+		long elapsed = nowNanos - mWindowStart;
+		if (elapsed < WINDOW_NANOS) {
+			return;
+		}
+		mInvalidationsPerSecond = (float) (mWindowInvalidations * 1e9 / elapsed);
+		mWindowStart = nowNanos;
+		mWindowInvalidations = 0;
+	}
+
+	/**
+	 * 某一时刻的统计，不会再变，可以交给其他线程
+	 */
+	public static final class Snapshot {
+
+		private final LatencyHistogram[] mHistograms;
+		private final long               mHiddenLabels;
+		private final long               mZeroSweepSkips;
+		private final long               mInvalidations;
+		private final float              mInvalidationsPerSecond;
+
+		Snapshot(LatencyHistogram[] histograms, long hiddenLabels, long zeroSweepSkips, long invalidations,
+				 float invalidationsPerSecond) {
+			mHistograms = histograms;
+			mHiddenLabels = hiddenLabels;
+			mZeroSweepSkips = zeroSweepSkips;
+			mInvalidations = invalidations;
+			mInvalidationsPerSecond = invalidationsPerSecond;
+		}
+
+		public long getCount(int stage) {
+			return mHistograms[stage].getCount();
+		}
+
+		public long getMeanNanos(int stage) {
+			return mHistograms[stage].getMeanNanos();
+		}
+
+		public long getMaxNanos(int stage) {
+			return mHistograms[stage].getMaxNanos();
+		}
+
+		public long getPercentileNanos(int stage, double percentile) {
+			return mHistograms[stage].getPercentileNanos(percentile);
+		}
+
+		/**
+		 * 最近一次画的时候因为重叠没有画的文字
+		 */
+		public long getHiddenLabels() {
+			return mHiddenLabels;
+		}
+
+		/**
+		 * 最近一次画的时候角度是0没有画的块
+		 */
+		public long getZeroSweepSkips() {
+			return mZeroSweepSkips;
+		}
+
+		public long getInvalidations() {
+			return mInvalidations;
+		}
+
+		/**
+		 * 上一个完整窗口里面的每秒重绘次数
+		 */
+		public float getInvalidationsPerSecond() {
+			return mInvalidationsPerSecond;
+		}
+	}
+}
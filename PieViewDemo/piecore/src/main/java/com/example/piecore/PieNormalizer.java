@@ -0,0 +1,199 @@
+package com.example.piecore;
+
+import java.util.Arrays;
+
+/**
+ * 饼状图数据的归一化
+ * 把每一块的值换算成比例、开始角度、扫过的角度，不依赖Android，PieGraph和PieView都用这里的算法
+ * 求和都是double加Kahan补偿，值很大或者块很多的时候也不丢精度；百分比是整数的万分之一，保证加起来正好是100.00%
+ * 值要大于等于0，long的值超过2^53的时候只保留double的精度
+ */
+public final class PieNormalizer {
+
+	/**
+	 * 百分比的单位是万分之一，加起来正好是这个数（100.00%）
+	 */
+	public static final int PERCENT_SCALE = 10000;
+
+	/**
+	 * 排序key里面余数占的位数
+	 */
+	private static final int  REMAINDER_BITS = 31;
+	private static final long REMAINDER_MAX  = (1L << REMAINDER_BITS) - 1;
+
+	private PieNormalizer() {
+	}
+
+	/**
+	 * Kahan求和
+	 */
+	public static double sum(double[] values, int count) {
+		double sum = 0;
+		double compensation = 0;
+		for (int index = 0; index < count; index++) {
+			double y = values[index] - compensation;
+			double t = sum + y;
+			compensation = (t - sum) - y;
+			sum = t;
+		}
+		return sum;
+	}
+
+	/**
+	 * PieGraph用的归一化
+	 * 开始角度按前缀和算，每一块扫过的角度是下一块的开始减掉这一块的开始，块和块之间没有缝，最后一块正好到360度
+	 *
+	 * @param values      每一块的值
+	 * @param count       有效的个数
+	 * @param ratios      输出：比例
+	 * @param startAngles 输出：开始角度
+	 * @param sweepAngles 输出：扫过的角度
+	 */
+	public static void normalize(double[] values, int count, float[] ratios, float[] startAngles, float[] sweepAngles) {
+		if (count <= 0) {
+			return;
+		}
+		double sum = sum(values, count);
+		if (!(sum > 0)) {
+			// 全是0的时候什么都不画
+			Arrays.fill(ratios, 0, count, 0);
+			Arrays.fill(startAngles, 0, count, 0);
+			Arrays.fill(sweepAngles, 0, count, 0);
+			return;
+		}
+		// 当前位置之前的总的值（Kahan），算开始角度用的，总共360
+		double preSum = 0;
+		double compensation = 0;
+		float startAngle = 0;
+		for (int index = 0; index < count; index++) {
+			ratios[index] = (float) (values[index] / sum);
+			double y = values[index] - compensation;
+			double t = preSum + y;
+			compensation = (t - preSum) - y;
+			preSum = t;
+			float endAngle = index == count - 1 ? 360 : (float) (preSum / sum * 360);
+			startAngles[index] = startAngle;
+			sweepAngles[index] = endAngle - startAngle;
+			startAngle = endAngle;
+		}
+	}
+
+	/**
+	 * 每一块的百分比（万分之一），最大余数法取整，加起来正好是{@link #PERCENT_SCALE}
+	 * 先全部向下取整，差多少个万分之一就给余数最大的那几块各加一个（余数一样的时候下标小的先加）
+	 * 每次都会新建一个长度是count的临时数组，反复算的时候用{@link #percentages(double[], int, int[], long[])}
+	 *
+	 * @param values   每一块的值
+	 * @param count    有效的个数
+	 * @param percents 输出：百分比，12.34%是1234
+	 */
+	public static void percentages(double[] values, int count, int[] percents) {
+		percentages(values, count, percents, new long[Math.max(0, count)]);
+	}
+
+	/**
+	 * 同{@link #percentages(double[], int, int[])}，临时数组由调用的地方提供，不再分配
+	 * 要加一的那几块用快速选择挑出来（平均O(n)），不对整个数组排序
+	 *
+	 * @param keys 临时数组，长度要大于等于count，里面原来的内容会被覆盖
+	 */
+	public static void percentages(double[] values, int count, int[] percents, long[] keys) {
+		if (count <= 0) {
+			return;
+		}
+		double sum = sum(values, count);
+		if (!(sum > 0)) {
+			Arrays.fill(percents, 0, count, 0);
+			return;
+		}
+		// 高位是（最大值 - 余数），低位是下标，从小到大排就是余数从大到小
+		long assigned = 0;
+		for (int index = 0; index < count; index++) {
+			double exact = values[index] / sum * PERCENT_SCALE;
+			int floor = (int) Math.floor(exact);
+			percents[index] = floor;
+			assigned += floor;
+			long remainder = Math.min(REMAINDER_MAX, Math.max(0, (long) ((exact - floor) * (1L << REMAINDER_BITS))));
+			keys[index] = ((REMAINDER_MAX - remainder) << 32) | index;
+		}
+		long missing = PERCENT_SCALE - assigned;
+		if (missing == 0) {
+			return;
+		}
+		if (missing > 0) {
+			// 每一块向下取整少掉的都不到1，所以missing一定小于count
+			int top = (int) missing;
+			selectSmallest(keys, count, top);
+			for (int rank = 0; rank < top; rank++) {
+				percents[(int) keys[rank]]++;
+			}
+		} else {
+			// 浮点误差导致多了的时候（几乎不会），从余数最小的那几块减掉，这里直接排序
+			Arrays.sort(keys, 0, count);
+			for (int rank = count - 1; rank >= 0 && missing < 0; rank--) {
+				int index = (int) keys[rank];
+				if (percents[index] > 0) {
+					percents[index]--;
+					missing++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 快速选择，把最小的k个key挪到keys的前k个（前k个之间不保证顺序），key不能重复
+	 */
+	private static void selectSmallest(long[] keys, int count, int k) {
+		int target = k - 1;
+		int left = 0;
+		int right = count - 1;
+		while (left < right) {
+			long a = keys[left];
+			long b = keys[(left + right) >>> 1];
+			long c = keys[right];
+			// 三个数取中间的做轴
+			long pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (keys[i] < pivot) {
+					i++;
+				}
+				while (keys[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					long temp = keys[i];
+					keys[i] = keys[j];
+					keys[j] = temp;
+					i++;
+					j--;
+				}
+			}
+			if (target <= j) {
+				right = j;
+			} else if (target >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * PieView用的归一化，只算比例和扫过的角度
+	 *
+	 * @param values      每一块的值
+	 * @param count       有效的个数
+	 * @param ratios      输出：比例
+	 * @param sweepAngles 输出：扫过的角度
+	 */
+	public static void normalizeSimple(double[] values, int count, float[] ratios, float[] sweepAngles) {
+		double sumValue = sum(values, count);
+		for (int index = 0; index < count; index++) {
+			double ratio = sumValue > 0 ? values[index] / sumValue : 0;
+			ratios[index] = (float) ratio;
+			sweepAngles[index] = (float) (ratio * 360);
+		}
+	}
+}
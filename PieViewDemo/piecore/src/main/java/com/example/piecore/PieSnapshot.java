@@ -0,0 +1,280 @@
+package com.example.piecore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * 饼状图的二进制快照：算好的数据（值、颜色、文字字典、比例、角度、百分比）加上旋转和选中
+ * 恢复的时候数组直接整块读出来，不用重新算角度；可以放进onSaveInstanceState，块很多的时候也可以写到文件里用mmap读
+ *
+ * 格式（小端）：
+ * <pre>
+ * int    MAGIC
+ * short  VERSION
+ * short  保留（0）
+ * int    块数 count
+ * int    文字字典的个数 labelCount
+ * float  旋转角度
+ * int    选中的下标（-1没有选中）
+ * labelCount个文字：int 字节数 + UTF-8
+ * double[count] 值
+ * int[count]    颜色
+ * int[count]    文字下标（-1没有文字）
+ * float[count]  比例
+ * float[count]  开始角度
+ * float[count]  扫过的角度
+ * int[count]    百分比（万分之一）
+ * </pre>
+ */
+public final class PieSnapshot {
+
+	/**
+	 * "PIES"
+	 */
+	public static final int   MAGIC   = 0x50494553;
+	public static final short VERSION = 1;
+
+	private static final int     HEADER_BYTES = 4 + 2 + 2 + 4 + 4 + 4 + 4;
+	private static final Charset UTF_8        = Charset.forName("UTF-8");
+
+	private final PieDataSet mDataSet;
+	private final float      mRotate;
+	private final int        mSelectIndex;
+
+	private PieSnapshot(PieDataSet dataSet, float rotate, int selectIndex) {
+		mDataSet = dataSet;
+		mRotate = rotate;
+		mSelectIndex = selectIndex;
+	}
+
+	public PieDataSet getDataSet() {
+		return mDataSet;
+	}
+
+	public float getRotate() {
+		return mRotate;
+	}
+
+	public int getSelectIndex() {
+		return mSelectIndex;
+	}
+
+	/**
+	 * 写成快照的字节数，dataSet要先{@link PieDataSet#computeAngles()}
+	 */
+	public static int sizeOf(PieDataSet dataSet) {
+		int size = HEADER_BYTES;
+		for (int index = 0; index < dataSet.getLabelCount(); index++) {
+			size += 4 + dataSet.getLabelAt(index).getBytes(UTF_8).length;
+		}
+		// 值是8个字节，其他6个数组都是4个字节
+		return size + dataSet.getCount() * (8 + 6 * 4);
+	}
+
+	/**
+	 * 写成一个byte数组
+	 *
+	 * @throws IllegalStateException dataSet改过以后还没有{@link PieDataSet#computeAngles()}
+	 */
+	public static byte[] write(PieDataSet dataSet, float rotate, int selectIndex) {
+		checkComputed(dataSet);
+		byte[] bytes = new byte[sizeOf(dataSet)];
+		write(dataSet, rotate, selectIndex, ByteBuffer.wrap(bytes));
+		return bytes;
+	}
+
+	/**
+	 * 写到out当前的位置，写完以后位置在快照的后面；out剩下的空间要有{@link #sizeOf}那么大
+	 * 只读dataSet，不会替它算角度（它可能是界面上正在用的数据，偷偷算了会让界面以为已经刷新过了）
+	 *
+	 * @throws IllegalStateException dataSet改过以后还没有{@link PieDataSet#computeAngles()}
+	 */
+	public static void write(PieDataSet dataSet, float rotate, int selectIndex, ByteBuffer out) {
+		checkComputed(dataSet);
+		ByteBuffer buffer = out.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		int count = dataSet.getCount();
+		int labelCount = dataSet.getLabelCount();
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.putShort((short) 0);
+		buffer.putInt(count);
+		buffer.putInt(labelCount);
+		buffer.putFloat(rotate);
+		buffer.putInt(selectIndex);
+		for (int index = 0; index < labelCount; index++) {
+			byte[] label = dataSet.getLabelAt(index).getBytes(UTF_8);
+			buffer.putInt(label.length);
+			buffer.put(label);
+		}
+		for (int index = 0; index < count; index++) {
+			buffer.putDouble(dataSet.getValue(index));
+		}
+		for (int index = 0; index < count; index++) {
+			buffer.putInt(dataSet.getColor(index));
+		}
+		for (int index = 0; index < count; index++) {
+			buffer.putInt(dataSet.getLabelIndex(index));
+		}
+		putFloats(buffer, dataSet.getRatios(), count);
+		putFloats(buffer, dataSet.getStartAngles(), count);
+		putFloats(buffer, dataSet.getSweepAngles(), count);
+		int[] percents = dataSet.getPercents();
+		for (int index = 0; index < count; index++) {
+			buffer.putInt(percents[index]);
+		}
+		out.position(buffer.position());
+	}
+
+	/**
+	 * 用mmap写到文件，块很多不适合放进onSaveInstanceState的时候用
+	 *
+	 * @throws IllegalStateException dataSet改过以后还没有{@link PieDataSet#computeAngles()}
+	 */
+	public static void write(PieDataSet dataSet, float rotate, int selectIndex, File file) throws IOException {
+		checkComputed(dataSet);
+		int size = sizeOf(dataSet);
+		RandomAccessFile output = new RandomAccessFile(file, "rw");
+		try {
+			output.setLength(size);
+			MappedByteBuffer buffer = output.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			write(dataSet, rotate, selectIndex, buffer);
+			buffer.force();
+		} finally {
+			output.close();
+		}
+	}
+
+	public static PieSnapshot read(byte[] bytes) {
+		return read(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * 从in当前的位置读一个快照，读完以后位置在快照的后面；数组是整块读出来的
+	 *
+	 * @throws IllegalArgumentException 不是快照、版本不支持、数据不完整或者下标、数字不对
+	 */
+	public static PieSnapshot read(ByteBuffer in) {
+		ByteBuffer buffer = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.remaining() < HEADER_BYTES) {
+			throw new IllegalArgumentException("truncated pie snapshot: " + buffer.remaining() + " bytes");
+		}
+		if (buffer.getInt() != MAGIC) {
+			throw new IllegalArgumentException("not a pie snapshot");
+		}
+		short version = buffer.getShort();
+		if (version != VERSION) {
+			throw new IllegalArgumentException("unsupported pie snapshot version: " + version);
+		}
+		buffer.getShort();
+		int count = buffer.getInt();
+		int labelCount = buffer.getInt();
+		float rotate = buffer.getFloat();
+		int selectIndex = buffer.getInt();
+		if (count < 0 || labelCount < 0) {
+			throw new IllegalArgumentException("corrupt pie snapshot: count " + count + ", labels " + labelCount);
+		}
+		// 分配数组之前先确认数据够长，坏文件里面的数字再大也不会先申请一大块内存；每一块32个字节，每个文字至少4个字节的长度
+		if ((long) count * 32 + (long) labelCount * 4 > buffer.remaining()) {
+			throw new IllegalArgumentException("truncated pie snapshot: count " + count + ", labels " + labelCount
+											   + ", " + buffer.remaining() + " bytes left");
+		}
+		String[] labels = new String[labelCount];
+		for (int index = 0; index < labelCount; index++) {
+			int length = buffer.getInt();
+			if (length < 0 || length > buffer.remaining()) {
+				throw new IllegalArgumentException("corrupt pie snapshot: label " + index + " length " + length);
+			}
+			byte[] label = new byte[length];
+			buffer.get(label);
+			labels[index] = new String(label, UTF_8);
+		}
+		if ((long) count * 32 > buffer.remaining()) {
+			throw new IllegalArgumentException("truncated pie snapshot: " + count + " slices, "
+											   + buffer.remaining() + " bytes left");
+		}
+		double[] values = new double[count];
+		buffer.asDoubleBuffer().get(values);
+		buffer.position(buffer.position() + count * 8);
+		int[] colors = getInts(buffer, count);
+		int[] labelIndices = getInts(buffer, count);
+		float[] ratios = getFloats(buffer, count);
+		float[] startAngles = getFloats(buffer, count);
+		float[] sweepAngles = getFloats(buffer, count);
+		int[] percents = getInts(buffer, count);
+		// 下标和数字都要检查，坏的快照在这里报错，不要等到画的时候数组越界
+		if (selectIndex < -1 || selectIndex >= count) {
+			throw new IllegalArgumentException("corrupt pie snapshot: select index " + selectIndex + " of " + count);
+		}
+		for (int index = 0; index < count; index++) {
+			if (labelIndices[index] < PieDataSet.NO_LABEL || labelIndices[index] >= labelCount) {
+				throw new IllegalArgumentException("corrupt pie snapshot: slice " + index + " label index "
+												   + labelIndices[index] + " of " + labelCount);
+			}
+			if (!isFinite(values[index]) || !isFinite(ratios[index]) || !isFinite(startAngles[index])
+				|| !isFinite(sweepAngles[index])) {
+				throw new IllegalArgumentException("corrupt pie snapshot: slice " + index + " is not finite");
+			}
+		}
+		in.position(buffer.position());
+
+		PieDataSet dataSet = new PieDataSet(values, colors, labelIndices, labels, count);
+		dataSet.restoreAngles(ratios, startAngles, sweepAngles, percents);
+		return new PieSnapshot(dataSet, rotate, selectIndex);
+	}
+
+	/**
+	 * 用mmap读文件，大文件也不用先整个读到堆里再解析
+	 */
+	public static PieSnapshot read(File file) throws IOException {
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = input.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return read(buffer);
+		} catch (IllegalArgumentException | BufferUnderflowException e) {
+			throw new IOException("invalid pie snapshot: " + file, e);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Double.isFinite是API 24才有的
+	 */
+	private static boolean isFinite(double value) {
+		return !Double.isNaN(value) && !Double.isInfinite(value);
+	}
+
+	private static void checkComputed(PieDataSet dataSet) {
+		if (dataSet.isAnglesDirty()) {
+			throw new IllegalStateException("pie data changed since computeAngles()");
+		}
+	}
+
+	private static void putFloats(ByteBuffer buffer, float[] values, int count) {
+		for (int index = 0; index < count; index++) {
+			buffer.putFloat(values[index]);
+		}
+	}
+
+	private static int[] getInts(ByteBuffer buffer, int count) {
+		int[] values = new int[count];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + count * 4);
+		return values;
+	}
+
+	private static float[] getFloats(ByteBuffer buffer, int count) {
+		float[] values = new float[count];
+		buffer.asFloatBuffer().get(values);
+		buffer.position(buffer.position() + count * 4);
+		return values;
+	}
+}
@@ -0,0 +1,125 @@
+package com.example.piecore;
+
+/**
+ * 两份数据之间的过渡动画
+ * 每一块的开始角度、扫过的角度、选中拉出来的比例都从旧的插值到新的，数组都是提前分配好的，
+ * {@link #apply(float)}每一帧调用也不会创建对象
+ */
+public final class PieTransition {
+
+	private float[] mFromStart  = new float[0];
+	private float[] mFromSweep  = new float[0];
+	private float[] mFromSelect = new float[0];
+	private float[] mToStart    = new float[0];
+	private float[] mToSweep    = new float[0];
+	private float[] mToSelect   = new float[0];
+	/**
+	 * 插值以后的结果，绘制直接用这几个数组
+	 */
+	private float[] mStart      = new float[0];
+	private float[] mSweep      = new float[0];
+	private float[] mSelect     = new float[0];
+	private int     mFromCount;
+	private int     mCount;
+
+	/**
+	 * 记下旧的样子（复制一份，之后旧数组被改了也没关系）
+	 *
+	 * @param selectIndex 旧的选中位置，没有是-1
+	 */
+	public void setFrom(float[] startAngles, float[] sweepAngles, int count, int selectIndex) {
+		ensureCapacity(count);
+		System.arraycopy(startAngles, 0, mFromStart, 0, count);
+		System.arraycopy(sweepAngles, 0, mFromSweep, 0, count);
+		for (int index = 0; index < count; index++) {
+			mFromSelect[index] = index == selectIndex ? 1 : 0;
+		}
+		mFromCount = count;
+	}
+
+	/**
+	 * 动画还没完又换了数据，从当前插值到的样子接着过渡，不会跳一下
+	 */
+	public void setFromCurrent() {
+		System.arraycopy(mStart, 0, mFromStart, 0, mCount);
+		System.arraycopy(mSweep, 0, mFromSweep, 0, mCount);
+		System.arraycopy(mSelect, 0, mFromSelect, 0, mCount);
+		mFromCount = mCount;
+	}
+
+	/**
+	 * 设置新的样子，然后停在开始（fraction = 0）的位置
+	 * 旧的没有的那几块从360度（旧的结尾）长出来，新的没有的那几块直接不画了
+	 *
+	 * @param selectIndex 新的选中位置，没有是-1
+	 */
+	public void setTo(float[] startAngles, float[] sweepAngles, int count, int selectIndex) {
+		ensureCapacity(count);
+		System.arraycopy(startAngles, 0, mToStart, 0, count);
+		System.arraycopy(sweepAngles, 0, mToSweep, 0, count);
+		for (int index = 0; index < count; index++) {
+			mToSelect[index] = index == selectIndex ? 1 : 0;
+		}
+		for (int index = mFromCount; index < count; index++) {
+			mFromStart[index] = 360;
+			mFromSweep[index] = 0;
+			mFromSelect[index] = 0;
+		}
+		mCount = count;
+		apply(0);
+	}
+
+	/**
+	 * 插值，每一帧调用
+	 *
+	 * @param fraction 0是旧的样子，1是新的样子
+	 */
+	public void apply(float fraction) {
+		for (int index = 0; index < mCount; index++) {
+			mStart[index] = mFromStart[index] + (mToStart[index] - mFromStart[index]) * fraction;
+			mSweep[index] = mFromSweep[index] + (mToSweep[index] - mFromSweep[index]) * fraction;
+			mSelect[index] = mFromSelect[index] + (mToSelect[index] - mFromSelect[index]) * fraction;
+		}
+	}
+
+	public int getCount() {
+		return mCount;
+	}
+
+	public float[] getStartAngles() {
+		return mStart;
+	}
+
+	public float[] getSweepAngles() {
+		return mSweep;
+	}
+
+	/**
+	 * 每一块选中拉出来的比例，0是没有拉出来，1是拉出来整个选中偏移的距离
+	 */
+	public float[] getSelectFractions() {
+		return mSelect;
+	}
+
+	private void ensureCapacity(int count) {
+		if (mStart.length >= count) {
+			return;
+		}
+		int capacity = Math.max(count, mStart.length * 2);
+		mFromStart = grow(mFromStart, capacity);
+		mFromSweep = grow(mFromSweep, capacity);
+		mFromSelect = grow(mFromSelect, capacity);
+		mToStart = grow(mToStart, capacity);
+		mToSweep = grow(mToSweep, capacity);
+		mToSelect = grow(mToSelect, capacity);
+		mStart = grow(mStart, capacity);
+		mSweep = grow(mSweep, capacity);
+		mSelect = grow(mSelect, capacity);
+	}
+
+	private static float[] grow(float[] array, int capacity) {
+		float[] grown = new float[capacity];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+}
@@ -0,0 +1,97 @@
+package com.example.piecore;
+
+/**
+ * 前缀和树（Fenwick tree / 树状数组）
+ * 改一个值、求前缀和、按前缀和找下标都是O(log n)，值不能是负数（按前缀和找下标的时候要求单调）
+ */
+public final class PrefixSumTree {
+
+	/**
+	 * 下标从1开始，mTree[i]是(i - lowbit(i), i]这一段的和
+	 */
+	private double[] mTree = new double[1];
+	private int      mSize;
+
+	/**
+	 * 用values的前count个重新建树，O(n)
+	 */
+	public void build(double[] values, int count) {
+		if (mTree.length < count + 1) {
+			mTree = new double[count + 1];
+		}
+		mSize = count;
+		for (int i = 1; i <= count; i++) {
+			mTree[i] = values[i - 1];
+		}
+		for (int i = 1; i <= count; i++) {
+			int parent = i + (i & -i);
+			if (parent <= count) {
+				mTree[parent] += mTree[i];
+			}
+		}
+	}
+
+	/**
+	 * 第index个值加上delta，O(log n)
+	 */
+	public void add(int index, double delta) {
+		for (int i = index + 1; i <= mSize; i += i & -i) {
+			mTree[i] += delta;
+		}
+	}
+
+	/**
+	 * 在最后加一个值，O(log n)
+	 */
+	public void append(double value) {
+		int i = mSize + 1;
+		if (mTree.length <= i) {
+			double[] tree = new double[Math.max(i + 1, mTree.length * 2)];
+			System.arraycopy(mTree, 0, tree, 0, mTree.length);
+			mTree = tree;
+		}
+		// mTree[i]管的是(i - lowbit(i), i]，前面那一段的和用前缀和相减得到
+		mTree[i] = value + prefixSum(i - 1) - prefixSum(i - (i & -i));
+		mSize = i;
+	}
+
+	/**
+	 * 前count个值的和，O(log n)
+	 */
+	public double prefixSum(int count) {
+		double sum = 0;
+		for (int i = count; i > 0; i -= i & -i) {
+			sum += mTree[i];
+		}
+		return sum;
+	}
+
+	public double total() {
+		return prefixSum(mSize);
+	}
+
+	/**
+	 * 找到前缀和第一次超过target的下标，也就是 prefixSum(index) <= target < prefixSum(index + 1)，O(log n)
+	 *
+	 * @return 下标，target小于0或者不小于总和的时候返回-1
+	 */
+	public int indexOf(double target) {
+		if (target < 0 || mSize == 0) {
+			return -1;
+		}
+		int position = 0;
+		double remain = target;
+		for (int step = Integer.highestOneBit(mSize); step > 0; step >>= 1) {
+			int next = position + step;
+			if (next <= mSize && mTree[next] <= remain) {
+				position = next;
+				remain -= mTree[next];
+			}
+		}
+		return position < mSize ? position : -1;
+	}
+
+	public int size() {
+		return mSize;
+	}
+}
@@ -0,0 +1,93 @@
+package com.example.piecore;
+
+/**
+ * 松手以后的惯性旋转
+ * 角速度按指数衰减：v(t) = v0 * e^(-friction * t)，每一帧按真实的时间间隔积分，帧率不稳也不会转多转少
+ */
+public final class RotationFling {
+
+	/**
+	 * 衰减系数（1/秒），越大停得越快
+	 */
+	private final float mFriction;
+	/**
+	 * 当前角速度（度/秒），顺时针是正的
+	 */
+	private float       mVelocity;
+	/**
+	 * 角速度小于这个（度/秒）就停下来
+	 */
+	private float       mStopVelocity;
+
+	public RotationFling(float friction) {
+		mFriction = friction;
+	}
+
+	/**
+	 * 开始惯性旋转
+	 *
+	 * @param velocity     角速度（度/秒）
+	 * @param stopVelocity 角速度小于这个（度/秒）就停下来
+	 * @return 速度够不够转起来
+	 */
+	public boolean start(float velocity, float stopVelocity) {
+		mStopVelocity = stopVelocity;
+		mVelocity = Math.abs(velocity) < stopVelocity ? 0 : velocity;
+		return mVelocity != 0;
+	}
+
+	/**
+	 * 往前走一帧
+	 *
+	 * @param seconds 离上一帧的时间（秒）
+	 * @return 这一帧转过的角度（度）
+	 */
+	public float step(float seconds) {
+		if (mVelocity == 0 || seconds <= 0) {
+			return 0;
+		}
+		float decay = (float) Math.exp(-mFriction * seconds);
+		// v0 * (1 - e^(-kt)) / k，是这段时间里面速度的积分
+		float delta = mVelocity * (1 - decay) / mFriction;
+		mVelocity *= decay;
+		if (Math.abs(mVelocity) < mStopVelocity) {
+			mVelocity = 0;
+		}
+		return delta;
+	}
+
+	public void stop() {
+		mVelocity = 0;
+	}
+
+	public boolean isFinished() {
+		return mVelocity == 0;
+	}
+
+	public float getVelocity() {
+		return mVelocity;
+	}
+
+	/**
+	 * 手指的线速度换算成绕圆心的角速度（度/秒），屏幕坐标系y向下，顺时针是正的
+	 *
+	 * @param dx 手指相对圆心的x
+	 * @param dy 手指相对圆心的y
+	 * @param vx 手指x方向的速度（像素/秒）
+	 * @param vy 手指y方向的速度（像素/秒）
+	 */
+	public static float angularVelocity(float dx, float dy, float vx, float vy) {
+		float distanceSquare = dx * dx + dy * dy;
+		if (distanceSquare == 0) {
+			return 0;
+		}
+		return (float) Math.toDegrees((dx * vy - dy * vx) / distanceSquare);
+	}
+
+	/**
+	 * 转过的角度在半径上对应的弧长（像素）
+	 */
+	public static float arcLength(float degrees, float radius) {
+		return (float) (Math.abs(degrees) * Math.PI / 180 * radius);
+	}
+}
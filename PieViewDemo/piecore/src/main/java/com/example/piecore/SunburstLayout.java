@@ -0,0 +1,236 @@
+package com.example.piecore;
+
+import java.util.ArrayList;
+
+/**
+ * 多层饼状图每一圈的角度
+ * 第0圈是根节点的子节点，第d圈是第d-1圈每一块的子节点在父节点的角度范围里面按比例分；没有子节点的块外面是空的
+ * 每一圈是要用的时候才算的（{@link #getRing}），半径不够画不出来的深层一直不会算
+ * 每一圈有自己的结束角度前缀（单调递增），按角度找是哪一块是二分查找，O(log n)
+ * setRoot以后再往节点上加子节点，下一次getRing的时候发现根节点的修改次数变了，会把算好的圈全部丢掉重新算
+ */
+public final class SunburstLayout {
+
+	private SunburstNode          mRoot;
+	private final ArrayList<Ring> mRings = new ArrayList<>();
+	/**
+	 * 已经算到最深了（下一圈是空的）
+	 */
+	private boolean               mComplete;
+	/**
+	 * 算这些圈的时候根节点的修改次数
+	 */
+	private int                   mRootModCount;
+
+	/**
+	 * 换数据，之前算的圈都不要了
+	 */
+	public void setRoot(SunburstNode root) {
+		mRoot = root;
+		invalidate();
+	}
+
+	/**
+	 * 之前算的圈都不要了，下一次getRing的时候重新算；节点加了子节点的时候会自动调用
+	 */
+	public void invalidate() {
+		mRings.clear();
+		mComplete = mRoot == null;
+		mRootModCount = mRoot == null ? 0 : mRoot.getModCount();
+	}
+
+	public SunburstNode getRoot() {
+		return mRoot;
+	}
+
+	/**
+	 * 第depth圈，还没算的时候从已经算好的最外面一圈往外算到这一圈
+	 *
+	 * @return 没有这么深的时候返回null
+	 */
+	public Ring getRing(int depth) {
+		if (mRoot != null && mRoot.getModCount() != mRootModCount) {
+			invalidate();
+		}
+		while (mRings.size() <= depth && !mComplete) {
+			Ring ring = mRings.isEmpty() ? buildFirst() : buildNext(mRings.get(mRings.size() - 1));
+			if (ring.getCount() == 0) {
+				mComplete = true;
+			} else {
+				mRings.add(ring);
+			}
+		}
+		return depth < mRings.size() ? mRings.get(depth) : null;
+	}
+
+	/**
+	 * 已经算好的圈数，测试和统计用
+	 */
+	public int getBuiltRingCount() {
+		return mRings.size();
+	}
+
+	/**
+	 * 点击的时候找是哪一块
+	 *
+	 * @param depth  第几圈
+	 * @param angle  屏幕上的角度[0, 360)
+	 * @param rotate 旋转的角度
+	 * @return 节点，没有的时候返回null
+	 */
+	public SunburstNode hitTest(int depth, float angle, float rotate) {
+		int index = indexOf(depth, angle, rotate);
+		return index < 0 ? null : mRings.get(depth).getNode(index);
+	}
+
+	/**
+	 * 和{@link #hitTest}一样，返回的是在这一圈里面的下标，没有的时候返回-1
+	 */
+	public int indexOf(int depth, float angle, float rotate) {
+		Ring ring = getRing(depth);
+		return ring == null ? -1 : ring.indexOf(toLocalAngle(angle, rotate));
+	}
+
+	private static float toLocalAngle(float angle, float rotate) {
+		float local = (angle - rotate) % 360;
+		if (local < 0) {
+			local += 360;
+		}
+		return local;
+	}
+
+	private Ring buildFirst() {
+		Ring ring = new Ring(mRoot.getChildCount());
+		ring.addChildren(mRoot, 0, 360, mRoot.getTotal(), -1);
+		return ring.finish();
+	}
+
+	private Ring buildNext(Ring parents) {
+		int count = 0;
+		for (int index = 0; index < parents.getCount(); index++) {
+			count += parents.getNode(index).getChildCount();
+		}
+		Ring ring = new Ring(count);
+		for (int index = 0; index < parents.getCount(); index++) {
+			SunburstNode parent = parents.getNode(index);
+			if (parent.getChildCount() > 0) {
+				ring.addChildren(parent, parents.getStartAngle(index), parents.getSweepAngle(index), parent.getTotal(), index);
+			}
+		}
+		return ring.finish();
+	}
+
+	/**
+	 * 一圈，块按角度从小到大排
+	 */
+	public static final class Ring {
+
+		private final SunburstNode[] mNodes;
+		private final float[]        mStartAngles;
+		private final float[]        mSweepAngles;
+		/**
+		 * 每一块的结束角度，二分查找用
+		 */
+		private final float[]        mEndAngles;
+		/**
+		 * 父节点在里面一圈的下标，第0圈是-1
+		 */
+		private final int[]          mParentIndices;
+		private       int            mCount;
+
+		Ring(int capacity) {
+			mNodes = new SunburstNode[capacity];
+			mStartAngles = new float[capacity];
+			mSweepAngles = new float[capacity];
+			mEndAngles = new float[capacity];
+			mParentIndices = new int[capacity];
+		}
+
+		/**
+		 * 把parent的子节点按比例放进[start, start + sweep)，最后一个正好到结束，没有缝
+		 */
+		void addChildren(SunburstNode parent, float start, float sweep, double total, int parentIndex) {
+			int count = parent.getChildCount();
+			// 前面子节点的和（Kahan），子节点很多的时候最后几块的角度也不会偏
+			double preSum = 0;
+			double compensation = 0;
+			float childStart = start;
+			for (int index = 0; index < count; index++) {
+				SunburstNode child = parent.getChild(index);
+				double y = child.getTotal() - compensation;
+				double t = preSum + y;
+				compensation = (t - preSum) - y;
+				preSum = t;
+				float childEnd;
+				if (!(total > 0)) {
+					childEnd = start;
+				} else if (index == count - 1) {
+					childEnd = start + sweep;
+				} else {
+					childEnd = start + (float) (preSum / total * sweep);
+				}
+				mNodes[mCount] = child;
+				mStartAngles[mCount] = childStart;
+				mSweepAngles[mCount] = childEnd - childStart;
+				mParentIndices[mCount] = parentIndex;
+				mCount++;
+				childStart = childEnd;
+			}
+		}
+
+		Ring finish() {
+			float preEnd = 0;
+			for (int index = 0; index < mCount; index++) {
+				// 保证单调，避免精度问题导致二分出错
+				float end = Math.max(preEnd, mStartAngles[index] + mSweepAngles[index]);
+				mEndAngles[index] = end;
+				preEnd = end;
+			}
+			return this;
+		}
+
+		/**
+		 * 没有旋转的角度是哪一块，O(log n)
+		 *
+		 * @param angle [0, 360)
+		 * @return 下标，落在空的地方（父节点没有子节点）返回-1
+		 */
+		public int indexOf(float angle) {
+			if (mCount <= 0 || angle >= mEndAngles[mCount - 1]) {
+				return -1;
+			}
+			// 找第一个结束角度大于angle的
+			int low = 0;
+			int high = mCount - 1;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (mEndAngles[mid] > angle) {
+					high = mid;
+				} else {
+					low = mid + 1;
+				}
+			}
+			return mStartAngles[low] <= angle ? low : -1;
+		}
+
+		public int getCount() {
+			return mCount;
+		}
+
+		public SunburstNode getNode(int index) {
+			return mNodes[index];
+		}
+
+		public float getStartAngle(int index) {
+			return mStartAngles[index];
+		}
+
+		public float getSweepAngle(int index) {
+			return mSweepAngles[index];
+		}
+
+		public int getParentIndex(int index) {
+			return mParentIndices[index];
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.example.piecore;
+
+import java.util.ArrayList;
+
+/**
+ * 多层饼状图（sunburst）的一个节点，比如 省 -> 市
+ * 没有子节点的时候用自己的值，有子节点的时候是子节点的和（算一次缓存起来，加子节点的时候往上清掉）
+ * 加子节点的时候往上每一个节点的修改次数都加一，{@link SunburstLayout}靠根节点的修改次数知道之前算的圈过期了
+ */
+public final class SunburstNode {
+
+	private final String                  mLabel;
+	private final int                     mColor;
+	private final double                  mValue;
+	private       ArrayList<SunburstNode> mChildren;
+	private       SunburstNode            mParent;
+	/**
+	 * 缓存的总和，小于0表示要重新算
+	 */
+	private       double                  mTotal = -1;
+	/**
+	 * 这个节点下面加过几次子节点
+	 */
+	private       int                     mModCount;
+
+	public SunburstNode(String label, double value, int color) {
+		mLabel = label;
+		mValue = value;
+		mColor = color;
+	}
+
+	/**
+	 * 加一个子节点
+	 *
+	 * @return 加进来的子节点，方便接着往下加
+	 */
+	public SunburstNode addChild(SunburstNode child) {
+		if (child.mParent != null) {
+			throw new IllegalArgumentException("node already has a parent: " + child.mLabel);
+		}
+		if (mChildren == null) {
+			mChildren = new ArrayList<>();
+		}
+		mChildren.add(child);
+		child.mParent = this;
+		for (SunburstNode node = this; node != null; node = node.mParent) {
+			node.mTotal = -1;
+			node.mModCount++;
+		}
+		return child;
+	}
+
+	public int getChildCount() {
+		return mChildren == null ? 0 : mChildren.size();
+	}
+
+	public SunburstNode getChild(int index) {
+		return mChildren.get(index);
+	}
+
+	int getModCount() {
+		return mModCount;
+	}
+
+	public SunburstNode getParent() {
+		return mParent;
+	}
+
+	public String getLabel() {
+		return mLabel;
+	}
+
+	public int getColor() {
+		return mColor;
+	}
+
+	public double getValue() {
+		return mValue;
+	}
+
+	/**
+	 * 这个节点占的值：叶子是自己的值，其他的是子节点的和（Kahan）
+	 */
+	public double getTotal() {
+		if (mTotal >= 0) {
+			return mTotal;
+		}
+		double total;
+		if (getChildCount() == 0) {
+			total = Math.max(0, mValue);
+		} else {
+			total = 0;
+			double compensation = 0;
+			for (int index = 0; index < mChildren.size(); index++) {
+				double y = mChildren.get(index).getTotal() - compensation;
+				double t = total + y;
+				compensation = (t - total) - y;
+				total = t;
+			}
+		}
+		mTotal = total;
+		return total;
+	}
+}
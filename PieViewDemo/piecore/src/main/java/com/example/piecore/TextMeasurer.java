@@ -0,0 +1,9 @@
+package com.example.piecore;
+
+/**
+ * 量文字的宽度（Android上是Paint.measureText，离线渲染是Font）
+ */
+public interface TextMeasurer {
+
+	float measure(String text);
+}
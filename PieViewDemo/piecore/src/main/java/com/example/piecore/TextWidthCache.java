@@ -0,0 +1,58 @@
+package com.example.piecore;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 文字宽度的缓存，按文字大小和文字两级存放，多个控件可以共用一个（线程安全）
+ * 每个文字大小最多存maxEntries个，超过的时候去掉最久没用的
+ */
+public final class TextWidthCache {
+
+	private final int                                          mMaxEntries;
+	private final HashMap<Float, LinkedHashMap<String, Float>> mWidths = new HashMap<>();
+	private long                                               mHitCount;
+	private long                                               mMissCount;
+
+	public TextWidthCache(int maxEntries) {
+		mMaxEntries = maxEntries;
+	}
+
+	/**
+	 * 取宽度，没有的时候用measurer量一次存起来
+	 */
+	public synchronized float get(String text, float textSize, TextMeasurer measurer) {
+		LinkedHashMap<String, Float> widths = mWidths.get(textSize);
+		if (widths == null) {
+			widths = new LinkedHashMap<String, Float>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Float> eldest) {
+					return size() > mMaxEntries;
+				}
+			};
+			mWidths.put(textSize, widths);
+		}
+		Float width = widths.get(text);
+		if (width != null) {
+			mHitCount++;
+			return width;
+		}
+		mMissCount++;
+		float measured = measurer.measure(text);
+		widths.put(text, measured);
+		return measured;
+	}
+
+	public synchronized void clear() {
+		mWidths.clear();
+	}
+
+	public synchronized long getHitCount() {
+		return mHitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return mMissCount;
+	}
+}
@@ -0,0 +1,132 @@
+package com.example.piecore;
+
+/**
+ * 每一块饼的几何信息缓存
+ * 都是旋转0度、圆心在原点的坐标：圆弧一半方向的单位向量（选中的时候往这个方向拉出去）、圆边缘上的锚点（文字标记线的起点）。
+ * 只有开始角度、扫过的角度或者半径变了的那几块才重新算，并且标记成dirty，外面按dirty重建自己的路径；
+ * 选中和旋转都不影响这里（选中只是沿着单位向量平移，旋转只是旋转画布）
+ */
+public final class WedgeGeometry {
+
+	private float[]   mStartAngles = new float[0];
+	private float[]   mSweepAngles = new float[0];
+	/**
+	 * 圆弧一半方向的单位向量
+	 */
+	private float[]   mDirX        = new float[0];
+	private float[]   mDirY        = new float[0];
+	private boolean[] mDirty       = new boolean[0];
+	private int       mCount;
+	/**
+	 * 半径，-1表示还没有算过
+	 */
+	private float     mRadius      = -1;
+
+	/**
+	 * 和上一次比较，只重新算变了的那几块
+	 *
+	 * @return 重新算了几块
+	 */
+	public int update(float[] startAngles, float[] sweepAngles, int count, float radius) {
+		ensureCapacity(count);
+		boolean radiusChanged = radius != mRadius;
+		int changed = 0;
+		for (int index = 0; index < count; index++) {
+			if (index < mCount && !radiusChanged && startAngles[index] == mStartAngles[index]
+					&& sweepAngles[index] == mSweepAngles[index]) {
+				continue;
+			}
+			mStartAngles[index] = startAngles[index];
+			mSweepAngles[index] = sweepAngles[index];
+			float middle = startAngles[index] + sweepAngles[index] / 2;
+			mDirX[index] = FastMath.cosDegrees(middle);
+			mDirY[index] = FastMath.sinDegrees(middle);
+			mDirty[index] = true;
+			changed++;
+		}
+		mCount = count;
+		mRadius = radius;
+		return changed;
+	}
+
+	public int getCount() {
+		return mCount;
+	}
+
+	public float getRadius() {
+		return mRadius;
+	}
+
+	public float getStartAngle(int index) {
+		return mStartAngles[index];
+	}
+
+	public float getSweepAngle(int index) {
+		return mSweepAngles[index];
+	}
+
+	/**
+	 * 选中的时候拉出来的偏移，圆弧一半的方向乘上距离
+	 */
+	public float getOffsetX(int index, float offset) {
+		return mDirX[index] * offset;
+	}
+
+	public float getOffsetY(int index, float offset) {
+		return mDirY[index] * offset;
+	}
+
+	/**
+	 * 圆弧一半的位置在圆边缘上的点
+	 */
+	public float getAnchorX(int index) {
+		return mDirX[index] * mRadius;
+	}
+
+	public float getAnchorY(int index) {
+		return mDirY[index] * mRadius;
+	}
+
+	public boolean isDirty(int index) {
+		return mDirty[index];
+	}
+
+	public void clearDirty(int index) {
+		mDirty[index] = false;
+	}
+
+	/**
+	 * 释放掉所有缓存，下一次update全部重新算
+	 */
+	public void release() {
+		mStartAngles = new float[0];
+		mSweepAngles = new float[0];
+		mDirX = new float[0];
+		mDirY = new float[0];
+		mDirty = new boolean[0];
+		mCount = 0;
+		mRadius = -1;
+	}
+
+	private void ensureCapacity(int count) {
+		if (mDirty.length >= count) {
+			return;
+		}
+		int capacity = Math.max(count, mDirty.length * 2);
+		float[] startAngles = new float[capacity];
+		float[] sweepAngles = new float[capacity];
+		float[] dirX = new float[capacity];
+		float[] dirY = new float[capacity];
+		boolean[] dirty = new boolean[capacity];
+		System.arraycopy(mStartAngles, 0, startAngles, 0, mCount);
+		System.arraycopy(mSweepAngles, 0, sweepAngles, 0, mCount);
+		System.arraycopy(mDirX, 0, dirX, 0, mCount);
+		System.arraycopy(mDirY, 0, dirY, 0, mCount);
+		System.arraycopy(mDirty, 0, dirty, 0, mCount);
+		mStartAngles = startAngles;
+		mSweepAngles = sweepAngles;
+		mDirX = dirX;
+		mDirY = dirY;
+		mDirty = dirty;
+	}
+}
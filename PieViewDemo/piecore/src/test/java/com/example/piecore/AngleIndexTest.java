@@ -0,0 +1,54 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AngleIndexTest {
+
+	@Test
+	public void indexOf_matchesLinearScan() {
+		Random random = new Random(42);
+		int count = 500;
+		double[] values = new double[count];
+		for (int index = 0; index < count; index++) {
+			// 有一些是0，扫过的角度是0的永远点不到
+			values[index] = random.nextInt(5) == 0 ? 0 : random.nextFloat() * 100;
+		}
+		float[] ratios = new float[count];
+		float[] startAngles = new float[count];
+		float[] sweepAngles = new float[count];
+		PieNormalizer.normalize(values, count, ratios, startAngles, sweepAngles);
+		AngleIndex angleIndex = new AngleIndex();
+		angleIndex.set(startAngles, sweepAngles, count);
+		for (int rotate = -720; rotate <= 720; rotate += 37) {
+			angleIndex.setRotate(rotate + 0.5f);
+			for (int angle = 0; angle < 360; angle++) {
+				assertEquals(linearIndexOf(angle, startAngles, sweepAngles, count, rotate + 0.5f),
+							 angleIndex.indexOf(angle));
+			}
+		}
+	}
+
+	/**
+	 * 原来的做法：一块一块地比较旋转以后的开始角度
+	 */
+	private static int linearIndexOf(int angle, float[] startAngles, float[] sweepAngles, int count, float rotate) {
+		for (int index = 0; index < count; index++) {
+			float realStartAngel = (startAngles[index] + rotate) % 360;
+			if (realStartAngel < 0) {
+				realStartAngel += 360;
+			}
+			if (realStartAngel + sweepAngles[index] > 360) {
+				if (angle >= realStartAngel || angle < realStartAngel + sweepAngles[index] - 360) {
+					return index;
+				}
+			} else if (angle >= realStartAngel && angle < realStartAngel + sweepAngles[index]) {
+				return index;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,51 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FastMathTest {
+
+	@Test
+	public void atan2Degrees_isWithinDocumentedError() {
+		float maxError = 0;
+		for (int step = 0; step < 36000; step++) {
+			double radians = Math.toRadians(step / 100.0);
+			float x = (float) (Math.cos(radians) * 150);
+			float y = (float) (Math.sin(radians) * 150);
+			double expected = Math.toDegrees(Math.atan2(y, x));
+			if (expected < 0) {
+				expected += 360;
+			}
+			float actual = FastMath.atan2Degrees(y, x);
+			assertTrue(actual >= 0 && actual < 360);
+			// 0度附近的时候360和0是一样的
+			float error = (float) Math.abs(actual - expected);
+			maxError = Math.max(maxError, Math.min(error, 360 - error));
+		}
+		assertTrue("max error " + maxError, maxError < 0.001f);
+		assertEquals(0, FastMath.atan2Degrees(0, 10), 0);
+		assertEquals(90, FastMath.atan2Degrees(10, 0), 0.001f);
+		assertEquals(180, FastMath.atan2Degrees(0, -10), 0.001f);
+		assertEquals(270, FastMath.atan2Degrees(-10, 0), 0.001f);
+	}
+
+	@Test
+	public void sinCosDegrees_areWithinDocumentedError() {
+		float maxError = 0;
+		for (int step = -72000; step < 72000; step++) {
+			float degrees = step / 7f;
+			double radians = Math.toRadians(degrees);
+			maxError = Math.max(maxError, (float) Math.abs(FastMath.sinDegrees(degrees) - Math.sin(radians)));
+			maxError = Math.max(maxError, (float) Math.abs(FastMath.cosDegrees(degrees) - Math.cos(radians)));
+		}
+		assertTrue("max error " + maxError, maxError < 5e-7f);
+	}
+
+	@Test
+	public void inCircle_comparesSquaredDistance() {
+		assertEquals(25, FastMath.distanceSquare(3, 4, 0, 0), 0);
+		assertTrue(FastMath.inCircle(103, 104, 100, 100, 5.01f));
+		assertFalse(FastMath.inCircle(103, 104, 100, 100, 5));
+	}
+}
@@ -0,0 +1,232 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class LabelLayoutTest {
+
+	private static final int COUNT = 240;
+
+	@Test
+	public void layout_steadyStateFrameAllocatesNothing() {
+		double[] values = new double[COUNT];
+		for (int index = 0; index < COUNT; index++) {
+			values[index] = index % 7 + 1;
+		}
+		float[] ratios = new float[COUNT];
+		float[] startAngles = new float[COUNT];
+		float[] sweepAngles = new float[COUNT];
+		PieNormalizer.normalize(values, COUNT, ratios, startAngles, sweepAngles);
+		LabelTextBuffer texts = new LabelTextBuffer();
+		texts.reset(COUNT);
+		for (int index = 0; index < COUNT; index++) {
+			texts.append("label" + index);
+			texts.setWidth(index, 40);
+		}
+		LabelLayout layout = new LabelLayout();
+		// 先热身，让JIT编译完
+		for (int frame = 0; frame < 20000; frame++) {
+			layout.layout(500, 400, startAngles, sweepAngles, texts, COUNT, frame % 360, frame % COUNT, 200, 16, 28, 12, 24);
+		}
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		// 先量一下读计数器本身的开销
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		long overhead = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+		before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int frame = 0; frame < 1000; frame++) {
+			layout.layout(500, 400, startAngles, sweepAngles, texts, COUNT, frame * 0.7f, frame % COUNT, 200, 16, 28, 12, 24);
+		}
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - before - overhead;
+		assertEquals("bytes allocated by 1000 frames", 0, allocated);
+	}
+
+	/**
+	 * 和PieGraph.onDraw一样的一帧：改一块的值、算角度和百分比、分组、扇形、文字位置、点击查找
+	 * 文字内容（格式化成字符串）是数据变了才做的，不在这里面
+	 */
+	@Test
+	public void frame_afterValueChangeAllocatesNothing() {
+		PieDataSet dataSet = new PieDataSet(COUNT);
+		LabelTextBuffer texts = new LabelTextBuffer();
+		texts.reset(COUNT);
+		for (int index = 0; index < COUNT; index++) {
+			dataSet.add(index % 7 + 1, 0xff000000 | index, "label" + index);
+			texts.append("label" + index);
+			texts.setWidth(index, 40);
+		}
+		WedgeGeometry wedges = new WedgeGeometry();
+		LodBuckets buckets = new LodBuckets();
+		LabelLayout layout = new LabelLayout();
+		// 先热身，让JIT编译完，数组也都长到够用
+		for (int frame = 0; frame < 20000; frame++) {
+			drawFrame(dataSet, texts, wedges, buckets, layout, frame);
+		}
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		long overhead = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+		before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int frame = 0; frame < 1000; frame++) {
+			drawFrame(dataSet, texts, wedges, buckets, layout, frame);
+		}
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - before - overhead;
+		assertEquals("bytes allocated by 1000 frames", 0, allocated);
+	}
+
+	private static int drawFrame(PieDataSet dataSet, LabelTextBuffer texts, WedgeGeometry wedges, LodBuckets buckets,
+								 LabelLayout layout, int frame) {
+		dataSet.setValue(frame % COUNT, frame % 11 + 1);
+		dataSet.computeAngles();
+		buckets.update(frame, dataSet, 200, 2);
+		wedges.update(dataSet.getStartAngles(), dataSet.getSweepAngles(), COUNT, 200);
+		layout.layout(500, 400, dataSet.getStartAngles(), dataSet.getSweepAngles(), texts, COUNT, frame * 0.7f,
+					  frame % COUNT, 200, 16, 28, 12, 24);
+		return dataSet.indexOfAngle(frame % 360);
+	}
+
+	/**
+	 * 全局摆放、个数超过{@link LabelPlacer#PARALLEL_THRESHOLD}的时候两列在ForkJoinPool里面并行算，
+	 * 池子里的线程分配的也要算进去，所以这里是所有线程加起来
+	 */
+	@Test
+	public void layout_parallelGlobalPlacementAllocatesNothing() {
+		int count = LabelPlacer.PARALLEL_THRESHOLD * 2;
+		double[] values = new double[count];
+		for (int index = 0; index < count; index++) {
+			values[index] = index % 7 + 1;
+		}
+		float[] ratios = new float[count];
+		float[] startAngles = new float[count];
+		float[] sweepAngles = new float[count];
+		PieNormalizer.normalize(values, count, ratios, startAngles, sweepAngles);
+		LabelTextBuffer texts = new LabelTextBuffer();
+		texts.reset(count);
+		for (int index = 0; index < count; index++) {
+			texts.append("l" + index);
+			texts.setWidth(index, 20);
+		}
+		LabelLayout layout = new LabelLayout();
+		layout.setPlacement(LabelLayout.PLACEMENT_GLOBAL, 0, 800);
+		for (int frame = 0; frame < 300; frame++) {
+			layout.layout(500, 400, startAngles, sweepAngles, texts, count, frame % 360, frame % count, 200, 16, 28, 12, 8);
+		}
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long before = allThreadsAllocatedBytes(threadBean);
+		long overhead = allThreadsAllocatedBytes(threadBean) - before;
+
+		// 池子里的线程挂起、唤醒的时候JDK偶尔会在内部分配一点，不是每一帧都有；
+		// 这里的代码每一帧分配的话每一轮都不会是0，所以只要有一轮是0就行
+		long allocated = -1;
+		for (int round = 0; round < 5 && allocated != 0; round++) {
+			before = allThreadsAllocatedBytes(threadBean);
+			for (int frame = 0; frame < 100; frame++) {
+				layout.layout(500, 400, startAngles, sweepAngles, texts, count, frame * 0.7f, frame % count, 200, 16, 28, 12,
+							  8);
+			}
+			allocated = allThreadsAllocatedBytes(threadBean) - before - overhead;
+		}
+		assertEquals("bytes allocated by 100 parallel frames", 0, allocated);
+	}
+
+	/**
+	 * 所有线程分配的字节数加起来；只会用到一个长度固定的数组，就是上面量的开销
+	 */
+	private static long allThreadsAllocatedBytes(com.sun.management.ThreadMXBean threadBean) {
+		long[] allocated = threadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds());
+		long total = 0;
+		for (int index = 0; index < allocated.length; index++) {
+			total += Math.max(0, allocated[index]);
+		}
+		return total;
+	}
+
+	@Test
+	public void layout_hidesCollidingLabels() {
+		int count = 3;
+		float[] startAngles = {0, 1, 2};
+		float[] sweepAngles = {1, 1, 358};
+		LabelTextBuffer texts = new LabelTextBuffer();
+		texts.reset(count);
+		for (int index = 0; index < count; index++) {
+			texts.append("abc");
+			texts.setWidth(index, 30);
+		}
+		LabelLayout layout = new LabelLayout();
+		int visible = layout.layout(500, 400, startAngles, sweepAngles, texts, count, 0, -1, 200, 16, 28, 12, 24);
+		assertTrue(layout.isVisible(0));
+		assertFalse(layout.isVisible(1));
+		assertEquals(2, visible);
+	}
+
+	@Test
+	public void update_onlyRecomputesWhatChanged() {
+		int count = 12;
+		double[] values = new double[count];
+		for (int index = 0; index < count; index++) {
+			values[index] = index + 1;
+		}
+		float[] ratios = new float[count];
+		float[] startAngles = new float[count];
+		float[] sweepAngles = new float[count];
+		PieNormalizer.normalize(values, count, ratios, startAngles, sweepAngles);
+		LabelTextBuffer texts = new LabelTextBuffer();
+		texts.reset(count);
+		for (int index = 0; index < count; index++) {
+			texts.append("x");
+			texts.setWidth(index, 10);
+		}
+		LabelLayout cached = new LabelLayout();
+		assertTrue(cached.update(1, 500, 400, startAngles, sweepAngles, texts, count, 30, -1, 200, 16, 28, 12, 24));
+		assertFalse(cached.update(1, 500, 400, startAngles, sweepAngles, texts, count, 30, -1, 200, 16, 28, 12, 24));
+		// 只有选中变了，结果要和全部重新算的一样
+		assertTrue(cached.update(1, 500, 400, startAngles, sweepAngles, texts, count, 30, 5, 200, 16, 28, 12, 24));
+		LabelLayout full = new LabelLayout();
+		full.layout(500, 400, startAngles, sweepAngles, texts, count, 30, 5, 200, 16, 28, 12, 24);
+		for (int index = 0; index < count; index++) {
+			assertEquals(full.isVisible(index), cached.isVisible(index));
+			assertEquals(full.getStartX(index), cached.getStartX(index), 0f);
+			assertEquals(full.getTextTop(index), cached.getTextTop(index));
+		}
+		assertTrue(cached.update(1, 500, 400, startAngles, sweepAngles, texts, count, 31, 5, 200, 16, 28, 12, 24));
+	}
+
+	@Test
+	public void update_selectionRepairMatchesFullLayout() {
+		int count = 400;
+		double[] values = new double[count];
+		for (int index = 0; index < count; index++) {
+			values[index] = index % 5 == 0 ? 40 : index % 3 + 1;
+		}
+		float[] ratios = new float[count];
+		float[] startAngles = new float[count];
+		float[] sweepAngles = new float[count];
+		PieNormalizer.normalize(values, count, ratios, startAngles, sweepAngles);
+		LabelTextBuffer texts = new LabelTextBuffer();
+		texts.reset(count);
+		for (int index = 0; index < count; index++) {
+			texts.append("label");
+			texts.setWidth(index, 30 + index % 4 * 10);
+		}
+		LabelLayout cached = new LabelLayout();
+		LabelLayout full = new LabelLayout();
+		java.util.Random random = new java.util.Random(7);
+		for (int tap = 0; tap < 200; tap++) {
+			int select = random.nextInt(count + 1) - 1;
+			cached.update(1, 500, 400, startAngles, sweepAngles, texts, count, 17, select, 200, 16, 28, 12, 12);
+			int visible = full.layout(500, 400, startAngles, sweepAngles, texts, count, 17, select, 200, 16, 28, 12, 12);
+			assertEquals(visible, cached.getVisibleCount());
+			for (int index = 0; index < count; index++) {
+				assertEquals("tap " + tap + " index " + index, full.isVisible(index), cached.isVisible(index));
+			}
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LabelPlacerTest {
+
+	@Test
+	public void place_shiftsInsteadOfDropping() {
+		float[] desiredY = {100, 101, 102, 300};
+		boolean[] isLeft = {false, false, false, true};
+		float[] priority = {1, 1, 1, 1};
+		boolean[] active = {true, true, true, true};
+		float[] outY = new float[4];
+		boolean[] visible = new boolean[4];
+		int count = new LabelPlacer().place(desiredY, isLeft, priority, active, 4, 10, 0, 400, outY, visible);
+		assertEquals(4, count);
+		assertEquals(100f, outY[0], 0f);
+		assertEquals(110f, outY[1], 0f);
+		assertEquals(120f, outY[2], 0f);
+		assertEquals(300f, outY[3], 0f);
+	}
+
+	@Test
+	public void place_thousandsOfLabelsDoNotOverlap() {
+		int count = 20000;
+		float[] desiredY = new float[count];
+		boolean[] isLeft = new boolean[count];
+		float[] priority = new float[count];
+		boolean[] active = new boolean[count];
+		for (int index = 0; index < count; index++) {
+			desiredY[index] = (index * 7919) % 1000;
+			isLeft[index] = index % 2 == 0;
+			priority[index] = index % 13;
+			active[index] = index % 5 != 0;
+		}
+		float[] outY = new float[count];
+		boolean[] visible = new boolean[count];
+		int visibleCount = new LabelPlacer().place(desiredY, isLeft, priority, active, count, 12, 0, 1000, outY, visible);
+		// 每一列最多放1000/12个
+		assertEquals(2 * (1000 / 12), visibleCount);
+		for (int side = 0; side < 2; side++) {
+			float[] placed = new float[count];
+			int size = 0;
+			for (int index = 0; index < count; index++) {
+				if (visible[index] && isLeft[index] == (side == 0)) {
+					assertTrue(active[index]);
+					placed[size++] = outY[index];
+				}
+			}
+			Arrays.sort(placed, 0, size);
+			assertTrue(placed[0] >= 6);
+			assertTrue(placed[size - 1] <= 994);
+			for (int i = 1; i < size; i++) {
+				assertTrue(placed[i] - placed[i - 1] >= 12 - 0.001f);
+			}
+		}
+	}
+
+	@Test
+	public void place_keepsHighestPriorityAndDesiredOrder() {
+		int count = 10000;
+		float[] desiredY = new float[count];
+		boolean[] isLeft = new boolean[count];
+		float[] priority = new float[count];
+		boolean[] active = new boolean[count];
+		for (int index = 0; index < count; index++) {
+			// 有负数，排序要按有符号的大小
+			desiredY[index] = (index * 7919) % count - count / 2;
+			priority[index] = index;
+			active[index] = true;
+		}
+		float[] outY = new float[count];
+		boolean[] visible = new boolean[count];
+		int visibleCount = new LabelPlacer().place(desiredY, isLeft, priority, active, count, 1, -1000, 1000, outY,
+												   visible);
+		assertEquals(2000, visibleCount);
+		for (int index = 0; index < count; index++) {
+			assertEquals(index >= count - 2000, visible[index]);
+		}
+		// 想放的位置靠上的，摆好以后也靠上
+		for (int a = count - 2000; a < count; a++) {
+			for (int b = a + 1; b < count; b += 97) {
+				if (desiredY[a] < desiredY[b]) {
+					assertTrue(outY[a] < outY[b]);
+				} else {
+					assertTrue(outY[a] > outY[b]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LabelTextCacheTest {
+
+	private static final TextMeasurer LENGTH = new TextMeasurer() {
+		@Override
+		public float measure(String text) {
+			return text.length();
+		}
+	};
+
+	private static PieDataSet dataSet(String... labels) {
+		PieDataSet dataSet = new PieDataSet();
+		dataSet.add(1, 0, labels[0]);
+		dataSet.add(1, 0, labels[1]);
+		dataSet.add(2, 0, labels[2]);
+		dataSet.computeAngles();
+		return dataSet;
+	}
+
+	private static String text(LabelTextBuffer buffer, int index) {
+		return new String(buffer.getChars(), buffer.getOffset(index), buffer.getLength(index));
+	}
+
+	@Test
+	public void update_formatsOnlyChangedSlices() {
+		LabelTextCache cache = new LabelTextCache();
+		LabelTextBuffer buffer = new LabelTextBuffer();
+		assertEquals(3, cache.update(dataSet("a", "b", "c"), LabelFormat.LABEL_AND_PERCENT, LENGTH, buffer));
+		assertEquals(0, cache.update(dataSet("a", "b", "c"), LabelFormat.LABEL_AND_PERCENT, LENGTH, buffer));
+		assertEquals(1, cache.update(dataSet("a", "b", "cc"), LabelFormat.LABEL_AND_PERCENT, LENGTH, buffer));
+		assertEquals("a(25.00%)", text(buffer, 0));
+		assertEquals("cc(50.00%)", text(buffer, 2));
+		assertEquals(10f, buffer.getWidth(2), 0f);
+	}
+
+	@Test
+	public void update_formatterChangeFormatsAll() {
+		LabelTextCache cache = new LabelTextCache();
+		LabelTextBuffer buffer = new LabelTextBuffer();
+		cache.update(dataSet("a", "b", "c"), LabelFormat.LABEL_AND_PERCENT, LENGTH, buffer);
+		assertEquals(3, cache.update(dataSet("a", "b", "c"), LabelFormat.PERCENT_ONLY, LENGTH, buffer));
+		assertEquals("50.00", text(buffer, 2));
+		cache.invalidate();
+		assertEquals(3, cache.update(dataSet("a", "b", "c"), LabelFormat.PERCENT_ONLY, LENGTH, buffer));
+	}
+
+	@Test
+	public void textWidthCache_measuresOncePerSize() {
+		final int[] measured = new int[1];
+		TextMeasurer counting = new TextMeasurer() {
+			@Override
+			public float measure(String text) {
+				measured[0]++;
+				return text.length();
+			}
+		};
+		TextWidthCache cache = new TextWidthCache(2);
+		assertEquals(3f, cache.get("abc", 10, counting), 0f);
+		assertEquals(3f, cache.get("abc", 10, counting), 0f);
+		cache.get("abc", 12, counting);
+		assertEquals(2, measured[0]);
+		assertEquals(1, cache.getHitCount());
+		// 超过个数的时候去掉最久没用的
+		cache.get("d", 10, counting);
+		cache.get("e", 10, counting);
+		cache.get("abc", 10, counting);
+		assertEquals(5, measured[0]);
+	}
+}
@@ -0,0 +1,36 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LodBucketsTest {
+
+	@Test
+	public void build_mergesSubPixelSlices() {
+		PieDataSet dataSet = new PieDataSet();
+		dataSet.add(50000, 0xffff0000, "big");
+		for (int index = 0; index < 50000; index++) {
+			dataSet.add(1, index == 100 ? 0xff00ff00 : 0xff0000ff, (String) null);
+		}
+		dataSet.computeAngles();
+		LodBuckets buckets = new LodBuckets();
+		// 半径200，半圆弧长大约628像素，5万块每块0.0126像素
+		int count = buckets.build(dataSet, 200, 1);
+		assertTrue(count < 700);
+		assertEquals(0, buckets.getFirst(0));
+		assertEquals(0, buckets.getLast(0));
+		assertEquals(0xffff0000, buckets.getColor(0));
+		// 所有的块都在某一组里面，而且连续
+		int expected = 1;
+		for (int bucket = 1; bucket < count; bucket++) {
+			assertEquals(expected, buckets.getFirst(bucket));
+			expected = buckets.getLast(bucket) + 1;
+		}
+		assertEquals(dataSet.getCount(), expected);
+		assertTrue(buckets.update(3, dataSet, 200, 1));
+		assertFalse(buckets.update(3, dataSet, 200, 1));
+		// 阈值是0的时候每一块单独一组
+		assertEquals(dataSet.getCount(), buckets.build(dataSet, 200, 0));
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PieDataSetTest {
+
+	@Test
+	public void add_sharesLabelsThroughDictionary() {
+		PieDataSet dataSet = new PieDataSet(2);
+		for (int index = 0; index < 1000; index++) {
+			dataSet.add(index + 1, 0xff000000 | index, index % 2 == 0 ? "even" : "odd");
+		}
+		dataSet.add(0, 0, (String) null);
+		assertEquals(1001, dataSet.getCount());
+		assertEquals(2, dataSet.getLabelCount());
+		assertEquals("odd", dataSet.getLabel(999));
+		assertNull(dataSet.getLabel(1000));
+		dataSet.computeAngles();
+		assertEquals(0f, dataSet.getSweepAngles()[1000], 0.001f);
+		assertEquals(360f, dataSet.getStartAngles()[999] + dataSet.getSweepAngles()[999], 0.01f);
+	}
+
+	@Test
+	public void contentHash_followsContent() {
+		PieDataSet first = new PieDataSet();
+		PieDataSet second = new PieDataSet();
+		for (int index = 0; index < 10; index++) {
+			first.add(index, index, "label" + index);
+			second.add(index, index, "label" + index);
+		}
+		assertEquals(first.contentHash(), second.contentHash());
+		second.setValue(3, 3.5);
+		assertNotEquals(first.contentHash(), second.contentHash());
+		second.setValue(3, 3);
+		assertEquals(first.contentHash(), second.contentHash());
+		second.remove(9);
+		assertNotEquals(first.contentHash(), second.contentHash());
+
+		// String.hashCode()一样的文字
+		assertEquals("Aa".hashCode(), "BB".hashCode());
+		PieDataSet aa = new PieDataSet();
+		aa.add(1, 0, "Aa");
+		PieDataSet bb = new PieDataSet();
+		bb.add(1, 0, "BB");
+		assertNotEquals(aa.contentHash(), bb.contentHash());
+		PieDataSet empty = new PieDataSet();
+		empty.add(1, 0, "");
+		PieDataSet none = new PieDataSet();
+		none.add(1, 0, (String) null);
+		assertNotEquals(empty.contentHash(), none.contentHash());
+	}
+
+	@Test
+	public void setValue_readsAnglesWithoutFullPass() {
+		int count = 100000;
+		PieDataSet dataSet = new PieDataSet(count);
+		PieDataSet expected = new PieDataSet(count);
+		for (int index = 0; index < count; index++) {
+			dataSet.add(index % 7 + 1, 0, (String) null);
+			expected.add(index % 7 + 1, 0, (String) null);
+		}
+		dataSet.computeAngles();
+		dataSet.getStartAngle(0);
+		int passes = dataSet.getFullPassCount();
+
+		dataSet.setValue(500, 1000);
+		expected.setValue(500, 1000);
+		expected.computeAngles();
+		for (int index : new int[]{0, 499, 500, 501, count - 1}) {
+			assertEquals(expected.getStartAngles()[index], dataSet.getStartAngle(index), 1e-3f);
+			assertEquals(expected.getSweepAngles()[index], dataSet.getSweepAngle(index), 1e-3f);
+			assertEquals(expected.getRatios()[index], dataSet.getRatio(index), 1e-6f);
+		}
+		assertTrue(dataSet.isAnglesDirty());
+		assertEquals(passes, dataSet.getFullPassCount());
+
+		// 下一次画的时候才一遍算完，而且不会重新建树
+		dataSet.computeAngles();
+		assertEquals(passes + 1, dataSet.getFullPassCount());
+		assertEquals(expected.getStartAngles()[501], dataSet.getStartAngle(501), 1e-3f);
+		assertEquals(passes + 1, dataSet.getFullPassCount());
+	}
+}
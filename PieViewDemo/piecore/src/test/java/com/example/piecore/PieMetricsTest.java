@@ -0,0 +1,70 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PieMetricsTest {
+
+	@Test
+	public void histogram_percentilesAreBucketUpperBounds() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int index = 0; index < 99; index++) {
+			histogram.record(1000);
+		}
+		histogram.record(1000000);
+		assertEquals(100, histogram.getCount());
+		assertEquals(1000000, histogram.getMaxNanos());
+		// 1000在[512, 1024)这个桶
+		assertEquals(1023, histogram.getPercentileNanos(50));
+		assertEquals(1023, histogram.getPercentileNanos(99));
+		assertEquals(1000000, histogram.getPercentileNanos(100));
+	}
+
+	@Test
+	public void snapshot_isDetachedFromLaterRecords() {
+		PieMetrics metrics = new PieMetrics();
+		metrics.record(PieMetrics.STAGE_ARC_DRAW, 500);
+		metrics.setHiddenLabels(3);
+		metrics.setZeroSweepSkips(2);
+		PieMetrics.Snapshot snapshot = metrics.snapshot();
+		metrics.record(PieMetrics.STAGE_ARC_DRAW, 500);
+		assertEquals(1, snapshot.getCount(PieMetrics.STAGE_ARC_DRAW));
+		assertEquals(0, snapshot.getCount(PieMetrics.STAGE_MODEL_BUILD));
+		assertEquals(3, snapshot.getHiddenLabels());
+		assertEquals(2, snapshot.getZeroSweepSkips());
+		metrics.reset();
+		assertEquals(0, metrics.snapshot().getCount(PieMetrics.STAGE_ARC_DRAW));
+	}
+
+	@Test
+	public void invalidations_ratePerWindow() {
+		PieMetrics metrics = new PieMetrics();
+		long second = PieMetrics.WINDOW_NANOS;
+		for (int index = 0; index < 60; index++) {
+			metrics.onInvalidate(index * second / 60);
+		}
+		metrics.onInvalidate(second);
+		assertEquals(61, metrics.snapshot(second).getInvalidations());
+		assertEquals(61f, metrics.snapshot(second).getInvalidationsPerSecond(), 0.01f);
+		assertFalse(metrics.shouldReport(second));
+		assertFalse(metrics.shouldReport(second + second / 2));
+		assertTrue(metrics.shouldReport(second * 2));
+
+		// 不重绘的时候取快照，每秒重绘次数也会降下来
+		metrics.onInvalidate(second * 2 + 1);
+		assertEquals(1f / 8, metrics.snapshot(second * 10 + 1).getInvalidationsPerSecond(), 0.001f);
+	}
+
+	@Test
+	public void counts_describeLatestFrameNotRedrawCount() {
+		PieMetrics metrics = new PieMetrics();
+		// 同一个布局重画3次
+		for (int frame = 0; frame < 3; frame++) {
+			metrics.setHiddenLabels(5);
+			metrics.setZeroSweepSkips(1);
+		}
+		assertEquals(5, metrics.snapshot(0).getHiddenLabels());
+		assertEquals(1, metrics.snapshot(0).getZeroSweepSkips());
+	}
+}
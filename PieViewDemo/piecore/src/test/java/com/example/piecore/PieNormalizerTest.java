@@ -0,0 +1,112 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PieNormalizerTest {
+
+	@Test
+	public void normalize_anglesCoverFullCircle() {
+		double[] values = {10, 30, 60};
+		float[] ratios = new float[3];
+		float[] startAngles = new float[3];
+		float[] sweepAngles = new float[3];
+		PieNormalizer.normalize(values, 3, ratios, startAngles, sweepAngles);
+		assertEquals(0f, startAngles[0], 0.001f);
+		assertEquals(36f, startAngles[1], 0.001f);
+		assertEquals(144f, startAngles[2], 0.001f);
+		assertEquals(360f, startAngles[2] + sweepAngles[2], 0.001f);
+		assertEquals(1f, ratios[0] + ratios[1] + ratios[2], 0.001f);
+	}
+
+	@Test
+	public void sum_keepsSmallValuesNextToHugeOnes() {
+		double[] values = new double[1001];
+		values[0] = 1e16;
+		for (int index = 1; index < values.length; index++) {
+			values[index] = 1;
+		}
+		// 直接加的话每个1都被吃掉了
+		assertEquals(1e16 + 1000, PieNormalizer.sum(values, values.length), 0);
+	}
+
+	@Test
+	public void percentages_alwaysSumToExactlyOneHundred() {
+		int[] percents = new int[3];
+		PieNormalizer.percentages(new double[]{1, 1, 1}, 3, percents);
+		// 33.333...三块，余数一样的时候下标小的先加
+		assertArrayEquals(new int[]{3334, 3333, 3333}, percents);
+
+		double[] values = new double[997];
+		for (int index = 0; index < values.length; index++) {
+			values[index] = (index * 7919L) % 1000 + 0.5;
+		}
+		percents = new int[values.length];
+		PieNormalizer.percentages(values, values.length, percents);
+		int total = 0;
+		for (int index = 0; index < percents.length; index++) {
+			total += percents[index];
+			// 每一块和真实值的差不到一个万分之一
+			assertEquals(values[index] / PieNormalizer.sum(values, values.length) * PieNormalizer.PERCENT_SCALE, percents[index], 1);
+		}
+		assertEquals(PieNormalizer.PERCENT_SCALE, total);
+
+		// 比float能精确表示的大很多的值
+		PieNormalizer.percentages(new double[]{Long.MAX_VALUE / 4, Long.MAX_VALUE / 4, Long.MAX_VALUE / 2}, 3, percents);
+		assertEquals(2500, percents[0]);
+		assertEquals(5000, percents[2]);
+		assertEquals("label(12.05%)", LabelFormat.format("label", 1205, false));
+		assertEquals("0.00", LabelFormat.format("label", 0, true));
+	}
+
+	@Test
+	public void percentages_reusesScratchAndPicksLargestRemainders() {
+		// 1428.57...七块，差4个万分之一，余数一样，下标小的四块各加一个
+		double[] values = {1, 1, 1, 1, 1, 1, 1};
+		int[] percents = new int[7];
+		long[] keys = new long[16];
+		Arrays.fill(keys, -1);
+		PieNormalizer.percentages(values, 7, percents, keys);
+		assertArrayEquals(new int[]{1429, 1429, 1429, 1429, 1428, 1428, 1428}, percents);
+
+		// 加了一的那些块，余数都不比没加的小
+		double[] mixed = new double[5003];
+		for (int index = 0; index < mixed.length; index++) {
+			mixed[index] = (index * 104729L) % 977 + 0.25;
+		}
+		int[] actual = new int[mixed.length];
+		PieNormalizer.percentages(mixed, mixed.length, actual, new long[mixed.length]);
+		double sum = PieNormalizer.sum(mixed, mixed.length);
+		double minRaised = 1;
+		double maxKept = 0;
+		int total = 0;
+		for (int index = 0; index < mixed.length; index++) {
+			double exact = mixed[index] / sum * PieNormalizer.PERCENT_SCALE;
+			double remainder = exact - Math.floor(exact);
+			if (actual[index] > Math.floor(exact)) {
+				minRaised = Math.min(minRaised, remainder);
+			} else {
+				maxKept = Math.max(maxKept, remainder);
+			}
+			total += actual[index];
+		}
+		assertEquals(PieNormalizer.PERCENT_SCALE, total);
+		assertTrue(minRaised >= maxKept - 1e-9);
+	}
+
+	@Test
+	public void hitTest_findsSliceAfterRotate() {
+		float[] startAngles = {0, 90, 180};
+		float[] sweepAngles = {90, 90, 180};
+		AngleIndex angleIndex = new AngleIndex();
+		angleIndex.set(startAngles, sweepAngles, 3);
+		assertEquals(0, angleIndex.indexOf(45));
+		angleIndex.setRotate(180);
+		assertEquals(2, angleIndex.indexOf(45));
+		assertEquals(5.71f, FastMath.atan2Degrees(1, 10), 0.01f);
+		assertEquals(185.71f, FastMath.atan2Degrees(-1, -10), 0.01f);
+	}
+}
@@ -0,0 +1,166 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class PieSnapshotTest {
+
+	private static PieDataSet dataSet() {
+		PieDataSet dataSet = new PieDataSet();
+		dataSet.add(10, 0xffff0000, "江西");
+		dataSet.add(30, 0xff00ff00, "南昌");
+		dataSet.add(0, 0xff0000ff, (String) null);
+		dataSet.add(60, 0xff000000, "江西");
+		dataSet.computeAngles();
+		return dataSet;
+	}
+
+	@Test
+	public void roundTrip_restoresModelWithoutRecomputing() {
+		PieDataSet source = dataSet();
+		byte[] bytes = PieSnapshot.write(source, 42.5f, 3);
+		assertEquals(PieSnapshot.sizeOf(source), bytes.length);
+
+		PieSnapshot snapshot = PieSnapshot.read(bytes);
+		PieDataSet restored = snapshot.getDataSet();
+		assertEquals(42.5f, snapshot.getRotate(), 0f);
+		assertEquals(3, snapshot.getSelectIndex());
+		assertFalse(restored.isAnglesDirty());
+		assertEquals(4, restored.getCount());
+		assertEquals(2, restored.getLabelCount());
+		assertEquals("江西", restored.getLabel(3));
+		assertNull(restored.getLabel(2));
+		for (int index = 0; index < 4; index++) {
+			assertEquals(source.getValue(index), restored.getValue(index), 0);
+			assertEquals(source.getColor(index), restored.getColor(index));
+			assertEquals(source.getStartAngles()[index], restored.getStartAngles()[index], 0f);
+			assertEquals(source.getSweepAngles()[index], restored.getSweepAngles()[index], 0f);
+			assertEquals(source.getPercents()[index], restored.getPercents()[index]);
+		}
+		assertEquals(source.contentHash(), restored.contentHash());
+		assertEquals(100, restored.getTotal(), 1e-9);
+	}
+
+	@Test
+	public void read_fromMappedFile() throws Exception {
+		File file = File.createTempFile("pie", ".snapshot");
+		try {
+			PieSnapshot.write(dataSet(), 0, -1, file);
+			PieSnapshot snapshot = PieSnapshot.read(file);
+			assertEquals(-1, snapshot.getSelectIndex());
+			assertEquals(144f, snapshot.getDataSet().getStartAngles()[3], 0.001f);
+			assertEquals(6000, snapshot.getDataSet().getPercents()[3]);
+		} finally {
+			assertTrue(file.delete());
+		}
+	}
+
+	@Test
+	public void read_rejectsOtherVersions() {
+		byte[] bytes = PieSnapshot.write(dataSet(), 0, -1);
+		// 版本在magic后面，小端
+		bytes[4] = 99;
+		try {
+			PieSnapshot.read(ByteBuffer.wrap(bytes));
+			fail("version 99 should be rejected");
+		} catch (IllegalArgumentException expected) {
+			assertTrue(expected.getMessage().contains("99"));
+		}
+	}
+
+	@Test
+	public void read_rejectsTruncatedBuffers() {
+		byte[] bytes = PieSnapshot.write(dataSet(), 0, -1);
+		try {
+			PieSnapshot.read(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+			fail("truncated snapshot should be rejected");
+		} catch (IllegalArgumentException expected) {
+			assertTrue(expected.getMessage().contains("truncated"));
+		}
+		try {
+			PieSnapshot.read(ByteBuffer.wrap(bytes, 0, 10));
+			fail("truncated header should be rejected");
+		} catch (IllegalArgumentException expected) {
+			assertTrue(expected.getMessage().contains("truncated"));
+		}
+
+		// 块数改成很大，不能先按这个数分配
+		ByteBuffer header = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(8, Integer.MAX_VALUE);
+		try {
+			PieSnapshot.read(header);
+			fail("oversized count should be rejected");
+		} catch (IllegalArgumentException expected) {
+			assertTrue(expected.getMessage().contains("truncated"));
+		}
+
+		// 第一个文字的长度改成负数
+		ByteBuffer label = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+		label.putInt(24, -5);
+		try {
+			PieSnapshot.read(label);
+			fail("negative label length should be rejected");
+		} catch (IllegalArgumentException expected) {
+			assertTrue(expected.getMessage().contains("length"));
+		}
+	}
+
+	@Test
+	public void write_doesNotRecomputeLiveData() {
+		PieDataSet dataSet = dataSet();
+		dataSet.add(100, 0xffffffff, "九江");
+		// 界面上的数据append以后还没画，保存快照不能替它把角度算了，不然下一帧以为不用刷新
+		try {
+			PieSnapshot.write(dataSet, 0, -1);
+			fail("dirty data should be rejected");
+		} catch (IllegalStateException expected) {
+			assertTrue(dataSet.isAnglesDirty());
+		}
+
+		// 画的时候刷新了以后再保存
+		dataSet.computeAngles();
+		PieSnapshot snapshot = PieSnapshot.read(PieSnapshot.write(dataSet, 0, 4));
+		assertEquals(5, snapshot.getDataSet().getCount());
+		assertEquals(dataSet.getStartAngles()[4], snapshot.getDataSet().getStartAngles()[4], 0f);
+	}
+
+	@Test
+	public void read_rejectsCorruptIndicesAndNumbers() {
+		PieDataSet dataSet = dataSet();
+		byte[] bytes = PieSnapshot.write(dataSet, 0, -1);
+		// 文字字典后面依次是值、颜色、文字下标、比例、开始角度、扫过的角度，每个数组4块
+		int values = PieSnapshot.sizeOf(dataSet) - 4 * (8 + 6 * 4);
+		int labelIndices = values + 4 * 8 + 4 * 4;
+		int startAngles = labelIndices + 4 * 4 + 4 * 4;
+
+		assertRejected(bytes, 20, 4, "select index");
+		assertRejected(bytes, labelIndices + 4, 2, "label index");
+		assertRejected(bytes, labelIndices, -2, "label index");
+		ByteBuffer value = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+		value.putDouble(values + 8, Double.NaN);
+		assertRejected(value, "not finite");
+		ByteBuffer angle = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+		angle.putFloat(startAngles + 12, Float.POSITIVE_INFINITY);
+		assertRejected(angle, "not finite");
+	}
+
+	private static void assertRejected(byte[] bytes, int offset, int value, String message) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(offset, value);
+		assertRejected(buffer, message);
+	}
+
+	private static void assertRejected(ByteBuffer buffer, String message) {
+		try {
+			PieSnapshot.read(buffer);
+			fail(message + " should be rejected");
+		} catch (IllegalArgumentException expected) {
+			assertTrue(expected.getMessage(), expected.getMessage().contains(message));
+		}
+	}
+}
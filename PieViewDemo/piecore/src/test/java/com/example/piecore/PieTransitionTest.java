@@ -0,0 +1,63 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class PieTransitionTest {
+
+	@Test
+	public void apply_interpolatesAnglesAndSelection() {
+		PieTransition transition = new PieTransition();
+		transition.setFrom(new float[]{0, 180}, new float[]{180, 180}, 2, 0);
+		transition.setTo(new float[]{0, 90, 180}, new float[]{90, 90, 180}, 3, 2);
+		assertEquals(3, transition.getCount());
+		// 开始的时候是旧的样子，多出来的那一块从360度长出来
+		assertEquals(180, transition.getSweepAngles()[0], 0);
+		assertEquals(360, transition.getStartAngles()[2], 0);
+		assertEquals(0, transition.getSweepAngles()[2], 0);
+		assertEquals(1, transition.getSelectFractions()[0], 0);
+
+		transition.apply(0.5f);
+		assertEquals(135, transition.getSweepAngles()[0], 0.001f);
+		assertEquals(135, transition.getStartAngles()[1], 0.001f);
+		assertEquals(0.5f, transition.getSelectFractions()[0], 0);
+		assertEquals(0.5f, transition.getSelectFractions()[2], 0);
+
+		// 中途换数据，从当前的样子接着过渡
+		transition.setFromCurrent();
+		transition.setTo(new float[]{0}, new float[]{360}, 1, -1);
+		assertEquals(135, transition.getSweepAngles()[0], 0.001f);
+		transition.apply(1);
+		assertEquals(360, transition.getSweepAngles()[0], 0);
+		assertEquals(0, transition.getSelectFractions()[0], 0);
+	}
+
+	@Test
+	public void apply_doesNotAllocate() {
+		final int count = 5000;
+		float[] startAngles = new float[count];
+		float[] sweepAngles = new float[count];
+		for (int index = 0; index < count; index++) {
+			startAngles[index] = 360f * index / count;
+			sweepAngles[index] = 360f / count;
+		}
+		PieTransition transition = new PieTransition();
+		transition.setFrom(startAngles, sweepAngles, count, -1);
+		transition.setTo(startAngles, sweepAngles, count, 7);
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		long overhead = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+		before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int frame = 0; frame <= 60; frame++) {
+			transition.apply(frame / 60f);
+		}
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - before - overhead;
+		assertEquals("bytes allocated by 60 frames", 0, allocated);
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PrefixSumTreeTest {
+
+	@Test
+	public void tree_matchesNaivePrefixSums() {
+		Random random = new Random(7);
+		int count = 1000;
+		double[] values = new double[count];
+		for (int index = 0; index < count; index++) {
+			values[index] = random.nextInt(10);
+		}
+		PrefixSumTree tree = new PrefixSumTree();
+		tree.build(values, 600);
+		for (int index = 600; index < count; index++) {
+			tree.append(values[index]);
+		}
+		for (int round = 0; round < 200; round++) {
+			int index = random.nextInt(count);
+			double value = random.nextInt(10);
+			tree.add(index, value - values[index]);
+			values[index] = value;
+		}
+		double sum = 0;
+		for (int index = 0; index < count; index++) {
+			assertEquals(sum, tree.prefixSum(index), 1e-9);
+			if (values[index] > 0) {
+				assertEquals(index, tree.indexOf(sum));
+				assertEquals(index, tree.indexOf(sum + values[index] - 0.5));
+			}
+			sum += values[index];
+		}
+		assertEquals(-1, tree.indexOf(sum));
+	}
+
+	@Test
+	public void dataSet_incrementalChangesKeepAnglesConsistent() {
+		PieDataSet dataSet = new PieDataSet();
+		dataSet.add(10, 0, "a");
+		dataSet.add(20, 0, "b");
+		dataSet.computeAngles();
+		dataSet.add(30, 0, "c");
+		dataSet.setValue(0, 40);
+		assertEquals(90, dataSet.getTotal(), 1e-9);
+		assertEquals(2, dataSet.indexOfAngle(300));
+		dataSet.insert(1, 90, 0, "d");
+		dataSet.remove(0);
+		assertEquals("d", dataSet.getLabel(0));
+		assertEquals(90, dataSet.getPrefixSum(1), 1e-9);
+		assertTrue(dataSet.isAnglesDirty());
+		dataSet.computeAngles();
+		assertEquals(90f / 140 * 360, dataSet.getStartAngles()[1], 0.001f);
+		assertEquals(0, dataSet.indexOfAngle(10));
+	}
+}
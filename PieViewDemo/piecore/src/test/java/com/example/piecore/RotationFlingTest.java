@@ -0,0 +1,44 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RotationFlingTest {
+
+	@Test
+	public void step_decaysToStopAndIsFrameRateIndependent() {
+		RotationFling fast = new RotationFling(3);
+		RotationFling slow = new RotationFling(3);
+		assertTrue(fast.start(720, 1));
+		assertTrue(slow.start(720, 1));
+		float fastTotal = 0;
+		float slowTotal = 0;
+		for (int frame = 0; frame < 120; frame++) {
+			fastTotal += fast.step(1 / 120f);
+		}
+		for (int frame = 0; frame < 30; frame++) {
+			slowTotal += slow.step(1 / 30f);
+		}
+		// 一秒以后不管帧率多少转过的角度一样
+		assertEquals(fastTotal, slowTotal, 0.01f);
+		assertEquals(720 * (1 - Math.exp(-3)) / 3, fastTotal, 0.01f);
+		while (!fast.isFinished()) {
+			fastTotal += fast.step(1 / 60f);
+		}
+		// 最多转 v0 / k
+		assertTrue(fastTotal < 240);
+		assertEquals(0, fast.step(1 / 60f), 0);
+		// 太慢的转不起来
+		assertFalse(new RotationFling(3).start(-0.5f, 1));
+	}
+
+	@Test
+	public void angularVelocity_clockwiseIsPositive() {
+		// 圆心右边往下（屏幕坐标y向下）是顺时针
+		assertEquals(Math.toDegrees(100f / 100), RotationFling.angularVelocity(100, 0, 0, 100), 0.001f);
+		assertEquals(-Math.toDegrees(1), RotationFling.angularVelocity(0, 100, 100, 0), 0.001f);
+		assertEquals(0, RotationFling.angularVelocity(0, 0, 5, 5), 0);
+		assertEquals(Math.PI * 100, RotationFling.arcLength(-180, 100), 0.001f);
+	}
+}
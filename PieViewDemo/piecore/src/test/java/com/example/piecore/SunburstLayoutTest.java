@@ -0,0 +1,77 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SunburstLayoutTest {
+
+	/**
+	 * 江西(南昌 1, 赣州 3)、上饶 4（没有下一层）
+	 */
+	private static SunburstNode tree() {
+		SunburstNode root = new SunburstNode(null, 0, 0);
+		SunburstNode jiangxi = root.addChild(new SunburstNode("江西", 0, 1));
+		jiangxi.addChild(new SunburstNode("南昌", 1, 2));
+		jiangxi.addChild(new SunburstNode("赣州", 3, 3));
+		root.addChild(new SunburstNode("上饶", 4, 4));
+		return root;
+	}
+
+	@Test
+	public void rings_childrenSplitParentSpan() {
+		SunburstLayout layout = new SunburstLayout();
+		layout.setRoot(tree());
+		SunburstLayout.Ring first = layout.getRing(0);
+		assertEquals(2, first.getCount());
+		assertEquals(180f, first.getSweepAngle(0), 0.001f);
+		SunburstLayout.Ring second = layout.getRing(1);
+		assertEquals(2, second.getCount());
+		assertEquals(0f, second.getStartAngle(0), 0f);
+		assertEquals(45f, second.getSweepAngle(0), 0.001f);
+		assertEquals(180f, second.getStartAngle(1) + second.getSweepAngle(1), 0f);
+		assertEquals(0, second.getParentIndex(1));
+		assertNull(layout.getRing(2));
+	}
+
+	@Test
+	public void rings_areBuiltLazily() {
+		SunburstLayout layout = new SunburstLayout();
+		layout.setRoot(tree());
+		assertEquals(0, layout.getBuiltRingCount());
+		layout.getRing(0);
+		assertEquals(1, layout.getBuiltRingCount());
+		layout.getRing(5);
+		assertEquals(2, layout.getBuiltRingCount());
+	}
+
+	@Test
+	public void hitTest_usesPerRingIndex() {
+		SunburstLayout layout = new SunburstLayout();
+		layout.setRoot(tree());
+		assertEquals("南昌", layout.hitTest(1, 10, 0).getLabel());
+		assertEquals("赣州", layout.hitTest(1, 100, 0).getLabel());
+		// 上饶外面是空的
+		assertNull(layout.hitTest(1, 200, 0));
+		assertEquals("上饶", layout.hitTest(0, 200, 0).getLabel());
+		// 转了90度，屏幕上100度是没有旋转的10度
+		assertEquals("南昌", layout.hitTest(1, 100, 90).getLabel());
+	}
+
+	@Test
+	public void rings_rebuildAfterNodesChange() {
+		SunburstNode root = tree();
+		SunburstLayout layout = new SunburstLayout();
+		layout.setRoot(root);
+		assertNull(layout.getRing(2));
+
+		// 上饶下面加一层，之前算好的圈（包括已经到底了）都要作废
+		SunburstNode shangrao = root.getChild(1);
+		shangrao.addChild(new SunburstNode("广丰", 4, 5));
+		SunburstLayout.Ring second = layout.getRing(1);
+		assertEquals(3, second.getCount());
+		assertEquals(180f, second.getStartAngle(2), 0.001f);
+		assertEquals(180f, second.getSweepAngle(2), 0.001f);
+		assertNull(layout.getRing(2));
+	}
+}
@@ -0,0 +1,41 @@
+package com.example.piecore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WedgeGeometryTest {
+
+	@Test
+	public void update_onlyRecomputesChangedSlices() {
+		WedgeGeometry geometry = new WedgeGeometry();
+		float[] startAngles = {0, 90, 180};
+		float[] sweepAngles = {90, 90, 180};
+		assertEquals(3, geometry.update(startAngles, sweepAngles, 3, 100));
+		// 第一块的中间是45度
+		assertEquals(Math.cos(Math.PI / 4) * 100, geometry.getAnchorX(0), 0.001f);
+		assertEquals(Math.sin(Math.PI / 4) * 8, geometry.getOffsetY(0, 8), 0.001f);
+		// 第三块的中间是270度，往上
+		assertEquals(-100, geometry.getAnchorY(2), 0.001f);
+		for (int index = 0; index < 3; index++) {
+			assertTrue(geometry.isDirty(index));
+			geometry.clearDirty(index);
+		}
+
+		assertEquals(0, geometry.update(startAngles, sweepAngles, 3, 100));
+		// 改了第二块和第三块的分界
+		sweepAngles[1] = 120;
+		startAngles[2] = 210;
+		sweepAngles[2] = 150;
+		assertEquals(2, geometry.update(startAngles, sweepAngles, 3, 100));
+		assertFalse(geometry.isDirty(0));
+		assertTrue(geometry.isDirty(1));
+		assertTrue(geometry.isDirty(2));
+
+		// 半径变了全部重新算
+		assertEquals(3, geometry.update(startAngles, sweepAngles, 3, 120));
+		geometry.release();
+		assertEquals(0, geometry.getCount());
+		assertEquals(3, geometry.update(startAngles, sweepAngles, 3, 120));
+	}
+}
@@ -0,0 +1,139 @@
+package com.example.pierender;
+
+import com.example.piecore.PieDataSet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量渲染，所有核一起画
+ * 每个线程一个{@link PieChartRenderer}（里面的数组一直复用），线程从同一个计数器领下一张，快的线程多画几张
+ * 线程池是共用的（所有的核，守护线程），每次调用不再新建和关掉线程；也可以传自己的线程池进来
+ */
+public final class PieChartBatch {
+
+	private static ExecutorService sExecutor;
+
+	private PieChartBatch() {
+	}
+
+	/**
+	 * 用所有的核渲染
+	 *
+	 * @see #renderAll(List, int)
+	 */
+	public static int renderAll(List<PieChartJob> jobs) throws IOException {
+		return renderAll(jobs, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * 在共用的线程池里面渲染，threads大于核数的时候最多也只有核数个线程同时画
+	 *
+	 * @see #renderAll(List, ExecutorService, int)
+	 */
+	public static int renderAll(List<PieChartJob> jobs, int threads) throws IOException {
+		return renderAll(jobs, executor(), threads);
+	}
+
+	private static synchronized ExecutorService executor() {
+		if (sExecutor == null) {
+			sExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+				private final AtomicInteger mCount = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "pie-render-" + mCount.incrementAndGet());
+					// 不挡住进程退出
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return sExecutor;
+	}
+
+	/**
+	 * 渲染所有的任务，全部画完才返回；有失败的时候其他的照样画完，最后抛出第一个错误（其他的在suppressed里面）
+	 * 线程池由调用的地方管理，这里不会关掉它；被中断的时候取消还没画完的任务
+	 * 提交之前在调用的线程把每个dataSet的角度算好，几个任务可以共用一个dataSet
+	 *
+	 * @param executor 线程池
+	 * @param threads  最多同时画的张数（提交到线程池的任务数）
+	 * @return 成功的张数
+	 */
+	public static int renderAll(final List<PieChartJob> jobs, ExecutorService executor, int threads) throws IOException {
+		if (jobs.isEmpty()) {
+			return 0;
+		}
+		// 角度先在当前线程算好，几个任务共用一个dataSet的时候，渲染的线程就只读不写
+		for (int index = 0; index < jobs.size(); index++) {
+			PieDataSet dataSet = jobs.get(index).getDataSet();
+			if (dataSet.isAnglesDirty()) {
+				dataSet.computeAngles();
+			}
+		}
+		int workers = Math.max(1, Math.min(threads, jobs.size()));
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger rendered = new AtomicInteger();
+		List<Future<List<IOException>>> futures = new ArrayList<>(workers);
+		try {
+			for (int worker = 0; worker < workers; worker++) {
+				futures.add(executor.submit(new Callable<List<IOException>>() {
+					@Override
+					public List<IOException> call() {
+						PieChartRenderer renderer = new PieChartRenderer();
+						List<IOException> errors = new ArrayList<>();
+						int index;
+						while ((index = next.getAndIncrement()) < jobs.size()) {
+							PieChartJob job = jobs.get(index);
+							try {
+								renderer.write(job.getDataSet(), job.getStyle(), job.getOutput());
+								rendered.incrementAndGet();
+							} catch (IOException e) {
+								errors.add(new IOException("render " + job.getOutput() + " failed", e));
+							}
+						}
+						return errors;
+					}
+				}));
+			}
+			IOException first = null;
+			for (int worker = 0; worker < futures.size(); worker++) {
+				List<IOException> errors;
+				try {
+					errors = futures.get(worker).get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("interrupted", e);
+				} catch (ExecutionException e) {
+					errors = new ArrayList<>();
+					errors.add(new IOException("render failed", e.getCause()));
+				}
+				for (int index = 0; index < errors.size(); index++) {
+					if (first == null) {
+						first = errors.get(index);
+					} else {
+						first.addSuppressed(errors.get(index));
+					}
+				}
+			}
+			if (first != null) {
+				throw first;
+			}
+		} finally {
+			// 正常结束的时候都已经完成了，取消不会有影响
+			for (int worker = 0; worker < futures.size(); worker++) {
+				futures.get(worker).cancel(true);
+			}
+		}
+		return rendered.get();
+	}
+}
@@ -0,0 +1,38 @@
+package com.example.pierender;
+
+import com.example.piecore.PieDataSet;
+
+import java.io.File;
+
+/**
+ * 批量渲染里面的一张图
+ * 不同的任务可以共用同一个dataSet和style：{@link PieChartBatch}提交之前在调用的线程把角度都算好，渲染的时候只读；
+ * 渲染完之前不要再改dataSet
+ */
+public final class PieChartJob {
+
+	private final PieDataSet    mDataSet;
+	private final PieChartStyle mStyle;
+	private final File          mOutput;
+
+	/**
+	 * @param output 输出的文件，后缀是.svg的时候写SVG，其他的写PNG
+	 */
+	public PieChartJob(PieDataSet dataSet, PieChartStyle style, File output) {
+		mDataSet = dataSet;
+		mStyle = style;
+		mOutput = output;
+	}
+
+	public PieDataSet getDataSet() {
+		return mDataSet;
+	}
+
+	public PieChartStyle getStyle() {
+		return mStyle;
+	}
+
+	public File getOutput() {
+		return mOutput;
+	}
+}
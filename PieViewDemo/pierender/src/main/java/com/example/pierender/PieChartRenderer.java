@@ -0,0 +1,433 @@
+package com.example.pierender;
+
+import com.example.piecore.LabelFormat;
+import com.example.piecore.LabelFormatter;
+import com.example.piecore.LabelLayout;
+import com.example.piecore.LabelTextBuffer;
+import com.example.piecore.LodBuckets;
+import com.example.piecore.PieDataSet;
+import com.example.piecore.WedgeGeometry;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import javax.imageio.ImageIO;
+
+/**
+ * 离线渲染饼状图，画出来的和PieGraph一样：同样的归一化、选中拉出来的方向、文字标记线（markerLine1、markerLine2）、
+ * 文字的格式和重叠隐藏规则都直接用piecore里面的
+ * 一个对象里面的数组会复用，不是线程安全的，多线程的时候每个线程一个（{@link PieChartBatch}就是这样做的）
+ */
+public final class PieChartRenderer {
+
+	/**
+	 * 和PieGraph一样，计算高度的时候上面和下面都预留2像素
+	 */
+	private static final int               DEFAULT_PADDING = 2;
+	private static final FontRenderContext FONT_CONTEXT    = new FontRenderContext(null, true, true);
+
+	private final LabelLayout     mLabelLayout = new LabelLayout();
+	private final LabelTextBuffer mLabelText   = new LabelTextBuffer();
+	private final WedgeGeometry   mWedges      = new WedgeGeometry();
+	private final LodBuckets      mLodBuckets  = new LodBuckets();
+	private final Arc2D.Float     mArc         = new Arc2D.Float(Arc2D.PIE);
+	private final Line2D.Float    mLine        = new Line2D.Float();
+	/**
+	 * 缓存的字体，字体名字和大小不变的时候不再重新创建
+	 */
+	private Font                  mFont;
+	private String                mFontName;
+	private float                 mTextHeight;
+	private float                 mTextBottom;
+
+	/**
+	 * 图片的高度，和PieGraph.onMeasure一样：半径 + 选中多出来的 + 半径延长线 + 文字高度的一半 + 预留的padding
+	 */
+	public int measureHeight(PieChartStyle style) {
+		LineMetrics metrics = font(style).getLineMetrics("Ag", FONT_CONTEXT);
+		float textHeight = metrics.getAscent() + metrics.getDescent();
+		return (int) ((style.getRadius() + style.getSelectOffset() + style.getMarkerLine1() + textHeight / 2 + DEFAULT_PADDING) * 2);
+	}
+
+	/**
+	 * 画成图片
+	 */
+	public BufferedImage render(PieDataSet dataSet, PieChartStyle style) {
+		int width = style.getWidth();
+		int height = measureHeight(style);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			if (style.getBackgroundColor() != 0) {
+				graphics.setColor(new Color(style.getBackgroundColor(), true));
+				graphics.fillRect(0, 0, width, height);
+			}
+			draw(graphics, dataSet, style, width, height);
+		} finally {
+			graphics.dispose();
+		}
+		return image;
+	}
+
+	public void writePng(PieDataSet dataSet, PieChartStyle style, OutputStream out) throws IOException {
+		if (!ImageIO.write(render(dataSet, style), "png", out)) {
+			throw new IOException("no png writer");
+		}
+	}
+
+	/**
+	 * 按文件的后缀写PNG或者SVG
+	 */
+	public void write(PieDataSet dataSet, PieChartStyle style, File file) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			if (file.getName().toLowerCase(Locale.ROOT).endsWith(".svg")) {
+				Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+				writeSvg(dataSet, style, writer);
+				writer.flush();
+			} else {
+				writePng(dataSet, style, out);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	private void draw(Graphics2D graphics, PieDataSet dataSet, PieChartStyle style, int width, int height) {
+		int count = prepare(dataSet, style, width, height);
+		if (count <= 0) {
+			return;
+		}
+		float centerX = width / 2;
+		float centerY = height / 2;
+		float radius = style.getRadius();
+		float rotate = style.getRotate();
+		int selectIndex = style.getSelectIndex();
+		float[] startAngles = dataSet.getStartAngles();
+		float[] sweepAngles = dataSet.getSweepAngles();
+		if (style.getLodArcThreshold() > 0) {
+			mLodBuckets.build(dataSet, radius, style.getLodArcThreshold());
+			for (int bucket = 0; bucket < mLodBuckets.getCount(); bucket++) {
+				if (mLodBuckets.getFirst(bucket) == selectIndex && mLodBuckets.getLast(bucket) == selectIndex) {
+					continue;
+				}
+				fillArc(graphics, centerX, centerY, radius, mLodBuckets.getStartAngle(bucket) + rotate,
+						mLodBuckets.getSweepAngle(bucket), mLodBuckets.getColor(bucket));
+			}
+		} else {
+			for (int index = 0; index < count; index++) {
+				if (sweepAngles[index] == 0 || index == selectIndex) {
+					continue;
+				}
+				fillArc(graphics, centerX, centerY, radius, startAngles[index] + rotate, sweepAngles[index], dataSet.getColor(index));
+			}
+		}
+		if (isSelectVisible(dataSet, selectIndex)) {
+			// 选中的那块沿着圆弧一半的方向拉出来，方向先按旋转0度算再转过去
+			float offsetX = rotateX(selectIndex, style, rotate);
+			float offsetY = rotateY(selectIndex, style, rotate);
+			fillArc(graphics, centerX + offsetX, centerY + offsetY, radius, startAngles[selectIndex] + rotate,
+					sweepAngles[selectIndex], dataSet.getColor(selectIndex));
+		}
+
+		// 文字和连接线
+		Color textColor = new Color(style.getTextColor(), true);
+		graphics.setColor(textColor);
+		graphics.setStroke(new BasicStroke(1));
+		graphics.setFont(mFont);
+		char[] chars = mLabelText.getChars();
+		for (int index = 0; index < count; index++) {
+			if (!mLabelLayout.isVisible(index)) {
+				continue;
+			}
+			float lineY = mLabelLayout.getLineY(index);
+			mLine.setLine(mLabelLayout.getStartX(index), mLabelLayout.getStartY(index), mLabelLayout.getElbowX(index), lineY);
+			graphics.draw(mLine);
+			mLine.setLine(mLabelLayout.getElbowX(index), lineY, mLabelLayout.getEndX(index), lineY);
+			graphics.draw(mLine);
+			graphics.drawString(new String(chars, mLabelText.getOffset(index), mLabelText.getLength(index)),
+								(float) mLabelLayout.getTextLeft(index), baseline(index));
+		}
+	}
+
+	/**
+	 * 写成SVG，几何和文字的位置和PNG一样
+	 */
+	public void writeSvg(PieDataSet dataSet, PieChartStyle style, Writer writer) throws IOException {
+		int width = style.getWidth();
+		int height = measureHeight(style);
+		StringBuilder svg = new StringBuilder(256 + dataSet.getCount() * 96);
+		svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(width).append("\" height=\"").append(height)
+		   .append("\" viewBox=\"0 0 ").append(width).append(' ').append(height).append("\">\n");
+		if (style.getBackgroundColor() != 0) {
+			svg.append("<rect width=\"100%\" height=\"100%\"");
+			appendFill(svg, style.getBackgroundColor());
+			svg.append("/>\n");
+		}
+		int count = prepare(dataSet, style, width, height);
+		if (count > 0) {
+			float centerX = width / 2;
+			float centerY = height / 2;
+			float radius = style.getRadius();
+			float rotate = style.getRotate();
+			int selectIndex = style.getSelectIndex();
+			float[] startAngles = dataSet.getStartAngles();
+			float[] sweepAngles = dataSet.getSweepAngles();
+			if (style.getLodArcThreshold() > 0) {
+				mLodBuckets.build(dataSet, radius, style.getLodArcThreshold());
+				for (int bucket = 0; bucket < mLodBuckets.getCount(); bucket++) {
+					if (mLodBuckets.getFirst(bucket) == selectIndex && mLodBuckets.getLast(bucket) == selectIndex) {
+						continue;
+					}
+					appendWedge(svg, centerX, centerY, radius, mLodBuckets.getStartAngle(bucket) + rotate,
+								mLodBuckets.getSweepAngle(bucket), mLodBuckets.getColor(bucket));
+				}
+			} else {
+				for (int index = 0; index < count; index++) {
+					if (sweepAngles[index] == 0 || index == selectIndex) {
+						continue;
+					}
+					appendWedge(svg, centerX, centerY, radius, startAngles[index] + rotate, sweepAngles[index], dataSet.getColor(index));
+				}
+			}
+			if (isSelectVisible(dataSet, selectIndex)) {
+				appendWedge(svg, centerX + rotateX(selectIndex, style, rotate), centerY + rotateY(selectIndex, style, rotate), radius,
+							startAngles[selectIndex] + rotate, sweepAngles[selectIndex], dataSet.getColor(selectIndex));
+			}
+
+			svg.append("<g fill=\"none\"");
+			appendColor(svg, "stroke", style.getTextColor());
+			svg.append(">\n");
+			for (int index = 0; index < count; index++) {
+				if (!mLabelLayout.isVisible(index)) {
+					continue;
+				}
+				svg.append("<polyline points=\"");
+				appendNumber(svg, mLabelLayout.getStartX(index)).append(',');
+				appendNumber(svg, mLabelLayout.getStartY(index)).append(' ');
+				appendNumber(svg, mLabelLayout.getElbowX(index)).append(',');
+				appendNumber(svg, mLabelLayout.getLineY(index)).append(' ');
+				appendNumber(svg, mLabelLayout.getEndX(index)).append(',');
+				appendNumber(svg, mLabelLayout.getLineY(index)).append("\"/>\n");
+			}
+			// 没有设置字体的时候AWT用的是默认的无衬线字体
+			String fontName = style.getFontName() == null ? "sans-serif" : style.getFontName();
+			svg.append("</g>\n<g font-family=\"").append(escape(fontName)).append("\" font-size=\"");
+			appendNumber(svg, style.getTextSize()).append('"');
+			appendFill(svg, style.getTextColor());
+			svg.append(">\n");
+			char[] chars = mLabelText.getChars();
+			for (int index = 0; index < count; index++) {
+				if (!mLabelLayout.isVisible(index)) {
+					continue;
+				}
+				svg.append("<text x=\"");
+				appendNumber(svg, mLabelLayout.getTextLeft(index)).append("\" y=\"");
+				appendNumber(svg, baseline(index)).append("\">");
+				appendEscaped(svg, chars, mLabelText.getOffset(index), mLabelText.getLength(index));
+				svg.append("</text>\n");
+			}
+			svg.append("</g>\n");
+		}
+		svg.append("</svg>\n");
+		writer.write(svg.toString());
+	}
+
+	/**
+	 * 算角度、拼文字量宽度、摆文字，PNG和SVG共用
+	 *
+	 * @return 块数
+	 */
+	private int prepare(PieDataSet dataSet, PieChartStyle style, int width, int height) {
+		int count = dataSet.getCount();
+		if (count <= 0) {
+			return 0;
+		}
+		if (dataSet.isAnglesDirty()) {
+			dataSet.computeAngles();
+		}
+		mFont = font(style);
+		LineMetrics metrics = mFont.getLineMetrics("Ag", FONT_CONTEXT);
+		mTextHeight = metrics.getAscent() + metrics.getDescent();
+		mTextBottom = metrics.getDescent();
+
+		LabelFormatter formatter = style.getLabelFormatter() != null ? style.getLabelFormatter()
+																	 : LabelFormat.defaultFormatter(style.isDrawRatio());
+		mLabelText.reset(count);
+		for (int index = 0; index < count; index++) {
+			CharSequence formatted = formatter.format(dataSet, index);
+			String text = formatted == null ? "" : formatted.toString();
+			mLabelText.append(text);
+			mLabelText.setWidth(index, (float) mFont.getStringBounds(text, FONT_CONTEXT).getWidth());
+		}
+		mWedges.update(dataSet.getStartAngles(), dataSet.getSweepAngles(), count, style.getRadius());
+		mLabelLayout.setPlacement(style.getLabelPlacement(), 0, height);
+		mLabelLayout.layout(width / 2, height / 2, dataSet.getStartAngles(), dataSet.getSweepAngles(), mLabelText, count,
+							style.getRotate(), style.getSelectIndex(), style.getRadius(), style.getSelectOffset(),
+							style.getMarkerLine1(), style.getMarkerLine2(), mTextHeight);
+		return count;
+	}
+
+	private Font font(PieChartStyle style) {
+		String fontName = style.getFontName();
+		if (mFont == null || mFont.getSize2D() != style.getTextSize()
+			|| (fontName == null ? mFontName != null : !fontName.equals(mFontName))) {
+			mFont = new Font(fontName, Font.PLAIN, 1).deriveFont(style.getTextSize());
+			mFontName = fontName;
+		}
+		return mFont;
+	}
+
+	private static boolean isSelectVisible(PieDataSet dataSet, int selectIndex) {
+		return selectIndex >= 0 && selectIndex < dataSet.getCount() && dataSet.getSweepAngles()[selectIndex] != 0;
+	}
+
+	/**
+	 * 选中拉出来的偏移，旋转0度的方向转过rotate
+	 */
+	private float rotateX(int index, PieChartStyle style, float rotate) {
+		double radians = Math.toRadians(rotate);
+		float x = mWedges.getOffsetX(index, style.getSelectOffset());
+		float y = mWedges.getOffsetY(index, style.getSelectOffset());
+		return (float) (x * Math.cos(radians) - y * Math.sin(radians));
+	}
+
+	private float rotateY(int index, PieChartStyle style, float rotate) {
+		double radians = Math.toRadians(rotate);
+		float x = mWedges.getOffsetX(index, style.getSelectOffset());
+		float y = mWedges.getOffsetY(index, style.getSelectOffset());
+		return (float) (x * Math.sin(radians) + y * Math.cos(radians));
+	}
+
+	/**
+	 * 文字的基准线，和PieGraph.drawText一样
+	 */
+	private float baseline(int index) {
+		return mLabelLayout.getTextTop(index) + mTextHeight - mTextBottom;
+	}
+
+	/**
+	 * Android的角度是顺时针的，Java2D的是逆时针的，取反
+	 */
+	private void fillArc(Graphics2D graphics, float centerX, float centerY, float radius, float startAngle, float sweepAngle,
+						 int color) {
+		mArc.setArc(centerX - radius, centerY - radius, radius * 2, radius * 2, -startAngle, -sweepAngle, Arc2D.PIE);
+		graphics.setColor(new Color(color, true));
+		graphics.fill(mArc);
+	}
+
+	private static void appendWedge(StringBuilder svg, float centerX, float centerY, float radius, float startAngle,
+									float sweepAngle, int color) {
+		if (sweepAngle >= 360) {
+			svg.append("<circle cx=\"");
+			appendNumber(svg, centerX).append("\" cy=\"");
+			appendNumber(svg, centerY).append("\" r=\"");
+			appendNumber(svg, radius).append('"');
+		} else {
+			double start = Math.toRadians(startAngle);
+			double end = Math.toRadians(startAngle + sweepAngle);
+			// SVG的y也是向下的，sweep-flag是1的时候顺时针，和Android一样
+			svg.append("<path d=\"M");
+			appendNumber(svg, centerX).append(' ');
+			appendNumber(svg, centerY).append('L');
+			appendNumber(svg, (float) (centerX + radius * Math.cos(start))).append(' ');
+			appendNumber(svg, (float) (centerY + radius * Math.sin(start))).append('A');
+			appendNumber(svg, radius).append(' ');
+			appendNumber(svg, radius).append(" 0 ").append(sweepAngle > 180 ? 1 : 0).append(" 1 ");
+			appendNumber(svg, (float) (centerX + radius * Math.cos(end))).append(' ');
+			appendNumber(svg, (float) (centerY + radius * Math.sin(end))).append("Z\"");
+		}
+		appendFill(svg, color);
+		svg.append("/>\n");
+	}
+
+	private static void appendFill(StringBuilder svg, int color) {
+		appendColor(svg, "fill", color);
+	}
+
+	/**
+	 * ARGB转成#rrggbb，有透明度的时候再加上opacity
+	 */
+	private static void appendColor(StringBuilder svg, String attribute, int color) {
+		svg.append(' ').append(attribute).append("=\"#");
+		String rgb = Integer.toHexString(color & 0xffffff);
+		for (int index = rgb.length(); index < 6; index++) {
+			svg.append('0');
+		}
+		svg.append(rgb).append('"');
+		int alpha = color >>> 24;
+		if (alpha != 0xff) {
+			svg.append(' ').append(attribute).append("-opacity=\"");
+			appendNumber(svg, alpha / 255f).append('"');
+		}
+	}
+
+	/**
+	 * 保留两位小数，不受Locale影响
+	 */
+	private static StringBuilder appendNumber(StringBuilder svg, float value) {
+		long hundredths = Math.round(value * 100.0);
+		if (hundredths < 0) {
+			svg.append('-');
+			hundredths = -hundredths;
+		}
+		svg.append(hundredths / 100);
+		long fraction = hundredths % 100;
+		if (fraction != 0) {
+			svg.append('.');
+			if (fraction < 10) {
+				svg.append('0');
+			}
+			svg.append(fraction % 10 == 0 ? fraction / 10 : fraction);
+		}
+		return svg;
+	}
+
+	private static String escape(String text) {
+		StringBuilder escaped = new StringBuilder(text.length());
+		appendEscaped(escaped, text.toCharArray(), 0, text.length());
+		return escaped.toString();
+	}
+
+	private static void appendEscaped(StringBuilder svg, char[] chars, int offset, int length) {
+		for (int index = offset; index < offset + length; index++) {
+			char c = chars[index];
+			switch (c) {
+				case '&':
+					svg.append("&amp;");
+					break;
+				case '<':
+					svg.append("&lt;");
+					break;
+				case '>':
+					svg.append("&gt;");
+					break;
+				case '"':
+					svg.append("&quot;");
+					break;
+				default:
+					svg.append(c);
+					break;
+			}
+		}
+	}
+}
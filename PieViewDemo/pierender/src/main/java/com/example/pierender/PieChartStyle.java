@@ -0,0 +1,165 @@
+package com.example.pierender;
+
+import com.example.piecore.LabelFormatter;
+import com.example.piecore.LabelLayout;
+
+/**
+ * 离线渲染的样式，和PieGraph的xml属性一一对应，单位都是像素
+ * 默认值是PieGraph的默认值按密度1换算过来的
+ */
+public final class PieChartStyle {
+
+	private int     mWidth           = 480;
+	private float   mRadius          = 80;
+	private float   mSelectOffset    = 8;
+	private float   mTextSize        = 10;
+	private int     mTextColor       = 0xff000000;
+	private float   mMarkerLine1     = 14;
+	private float   mMarkerLine2     = 6;
+	private boolean mIsDrawRatio;
+	private LabelFormatter mLabelFormatter;
+	private int     mLabelPlacement  = LabelLayout.PLACEMENT_SEQUENTIAL;
+	private float   mRotate;
+	private int     mSelectIndex     = -1;
+	private int     mBackgroundColor;
+	private float   mLodArcThreshold;
+	private String  mFontName        = "SansSerif";
+
+	public int getWidth() {
+		return mWidth;
+	}
+
+	public void setWidth(int width) {
+		mWidth = width;
+	}
+
+	public float getRadius() {
+		return mRadius;
+	}
+
+	public void setRadius(float radius) {
+		mRadius = radius;
+	}
+
+	public float getSelectOffset() {
+		return mSelectOffset;
+	}
+
+	public void setSelectOffset(float selectOffset) {
+		mSelectOffset = selectOffset;
+	}
+
+	public float getTextSize() {
+		return mTextSize;
+	}
+
+	public void setTextSize(float textSize) {
+		mTextSize = textSize;
+	}
+
+	public int getTextColor() {
+		return mTextColor;
+	}
+
+	public void setTextColor(int textColor) {
+		mTextColor = textColor;
+	}
+
+	public float getMarkerLine1() {
+		return mMarkerLine1;
+	}
+
+	public void setMarkerLine1(float markerLine1) {
+		mMarkerLine1 = markerLine1;
+	}
+
+	public float getMarkerLine2() {
+		return mMarkerLine2;
+	}
+
+	public void setMarkerLine2(float markerLine2) {
+		mMarkerLine2 = markerLine2;
+	}
+
+	public boolean isDrawRatio() {
+		return mIsDrawRatio;
+	}
+
+	/**
+	 * true的时候只画百分比，false的时候画文字加百分比
+	 */
+	public void setDrawRatio(boolean isDrawRatio) {
+		mIsDrawRatio = isDrawRatio;
+	}
+
+	public LabelFormatter getLabelFormatter() {
+		return mLabelFormatter;
+	}
+
+	/**
+	 * 自定义的文字格式，null的时候按drawRatio用默认的
+	 */
+	public void setLabelFormatter(LabelFormatter labelFormatter) {
+		mLabelFormatter = labelFormatter;
+	}
+
+	public int getLabelPlacement() {
+		return mLabelPlacement;
+	}
+
+	/**
+	 * @param labelPlacement {@link LabelLayout#PLACEMENT_SEQUENTIAL}或者{@link LabelLayout#PLACEMENT_GLOBAL}
+	 */
+	public void setLabelPlacement(int labelPlacement) {
+		mLabelPlacement = labelPlacement;
+	}
+
+	public float getRotate() {
+		return mRotate;
+	}
+
+	public void setRotate(float rotate) {
+		mRotate = rotate;
+	}
+
+	public int getSelectIndex() {
+		return mSelectIndex;
+	}
+
+	/**
+	 * 拉出来画的那一块，没有是-1
+	 */
+	public void setSelectIndex(int selectIndex) {
+		mSelectIndex = selectIndex;
+	}
+
+	public int getBackgroundColor() {
+		return mBackgroundColor;
+	}
+
+	/**
+	 * 背景色（ARGB），默认透明
+	 */
+	public void setBackgroundColor(int backgroundColor) {
+		mBackgroundColor = backgroundColor;
+	}
+
+	public float getLodArcThreshold() {
+		return mLodArcThreshold;
+	}
+
+	/**
+	 * 和PieGraph.setLodArcThreshold一样，圆弧长度小于这个的连续几块合并成一组画
+	 */
+	public void setLodArcThreshold(float lodArcThreshold) {
+		mLodArcThreshold = lodArcThreshold;
+	}
+
+	public String getFontName() {
+		return mFontName;
+	}
+
+	public void setFontName(String fontName) {
+		mFontName = fontName;
+	}
+}
@@ -0,0 +1,119 @@
+package com.example.pierender;
+
+import com.example.piecore.PieDataSet;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class PieChartRendererTest {
+
+	private static PieDataSet dataSet() {
+		PieDataSet dataSet = new PieDataSet();
+		dataSet.add(50, 0xffff0000, "red");
+		dataSet.add(25, 0xff00ff00, "green");
+		dataSet.add(25, 0xff0000ff, "blue");
+		return dataSet;
+	}
+
+	@Test
+	public void render_drawsSlicesAtPieGraphGeometry() {
+		PieChartRenderer renderer = new PieChartRenderer();
+		PieChartStyle style = new PieChartStyle();
+		BufferedImage image = renderer.render(dataSet(), style);
+		assertEquals(style.getWidth(), image.getWidth());
+		assertEquals(renderer.measureHeight(style), image.getHeight());
+		int centerX = image.getWidth() / 2;
+		int centerY = image.getHeight() / 2;
+		// 0到180度是红色（下半边），180到270度绿色（左上），270到360度蓝色（右上）
+		assertEquals(0xffff0000, image.getRGB(centerX, centerY + 40));
+		assertEquals(0xff00ff00, image.getRGB(centerX - 30, centerY - 30));
+		assertEquals(0xff0000ff, image.getRGB(centerX + 30, centerY - 30));
+		// 圆外面是透明的
+		assertEquals(0, image.getRGB(2, 2));
+	}
+
+	@Test
+	public void writeSvg_containsWedgesAndVisibleLabels() throws IOException {
+		PieChartStyle style = new PieChartStyle();
+		style.setSelectIndex(1);
+		StringWriter writer = new StringWriter();
+		new PieChartRenderer().writeSvg(dataSet(), style, writer);
+		String svg = writer.toString();
+		assertTrue(svg.startsWith("<svg"));
+		assertEquals(3, count(svg, "<path "));
+		assertEquals(3, count(svg, "<polyline "));
+		assertTrue(svg.contains(">red(50.00%)</text>"));
+
+		// 没有设置字体的时候用默认的
+		style.setFontName(null);
+		writer = new StringWriter();
+		new PieChartRenderer().writeSvg(dataSet(), style, writer);
+		assertTrue(writer.toString().contains("font-family=\"sans-serif\""));
+	}
+
+	@Test
+	public void renderAll_writesEveryJob() throws IOException {
+		File dir = Files.createTempDirectory("pie").toFile();
+		PieChartStyle style = new PieChartStyle();
+		List<PieChartJob> jobs = new ArrayList<>();
+		for (int index = 0; index < 40; index++) {
+			jobs.add(new PieChartJob(dataSet(), style, new File(dir, index + (index % 2 == 0 ? ".png" : ".svg"))));
+		}
+		assertEquals(40, PieChartBatch.renderAll(jobs, 4));
+		for (int index = 0; index < jobs.size(); index++) {
+			File output = jobs.get(index).getOutput();
+			assertTrue(output.length() > 0);
+			assertTrue(output.delete());
+		}
+		assertTrue(dir.delete());
+	}
+
+	@Test
+	public void renderAll_leavesCallerExecutorRunning() throws IOException {
+		File dir = Files.createTempDirectory("pie").toFile();
+		PieChartStyle style = new PieChartStyle();
+		List<PieChartJob> jobs = new ArrayList<>();
+		// 几个任务共用一个还没算角度的dataSet
+		PieDataSet shared = dataSet();
+		shared.add(10, 0xff000000, "black");
+		for (int index = 0; index < 6; index++) {
+			jobs.add(new PieChartJob(shared, style, new File(dir, index + ".SVG")));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			assertEquals(6, PieChartBatch.renderAll(jobs, executor, 2));
+			assertEquals(6, PieChartBatch.renderAll(jobs, executor, 2));
+			assertFalse(executor.isShutdown());
+		} finally {
+			executor.shutdownNow();
+		}
+		for (int index = 0; index < jobs.size(); index++) {
+			File output = jobs.get(index).getOutput();
+			// 大写的后缀也按SVG写
+			assertEquals('<', Files.readAllBytes(output.toPath())[0]);
+			assertTrue(output.delete());
+		}
+		assertTrue(dir.delete());
+	}
+
+	private static int count(String text, String part) {
+		int count = 0;
+		int index = text.indexOf(part);
+		while (index >= 0) {
+			count++;
+			index = text.indexOf(part, index + 1);
+		}
+		return count;
+	}
+}